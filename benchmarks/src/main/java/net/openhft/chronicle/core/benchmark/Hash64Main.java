@@ -0,0 +1,104 @@
+/*
+ *     Copyright (C) 2015-2020 chronicle.software
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.openhft.chronicle.core.benchmark;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.Maths;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/*
+ * Compares Maths.hash64 of a String with hash64 and wordHash64 of the same bytes in native memory,
+ * for keys of 4 to 256 bytes.
+ */
+@State(Scope.Thread)
+public class Hash64Main {
+    @Param({"4", "16", "64", "256"})
+    int length;
+
+    String text;
+    long address;
+
+    public static void main(String... args) throws RunnerException, InvocationTargetException, IllegalAccessException {
+        if (Jvm.isDebug()) {
+            Hash64Main main = new Hash64Main();
+            main.length = 64;
+            main.setup();
+            for (Method m : Hash64Main.class.getMethods()) {
+                if (m.getAnnotation(Benchmark.class) != null) {
+                    m.invoke(main);
+                }
+            }
+            main.tearDown();
+        } else {
+            int time = Jvm.getBoolean("longTest") ? 5 : 1;
+            System.out.println("measurementTime: " + time + " secs");
+            Options opt = new OptionsBuilder()
+                    .include(Hash64Main.class.getSimpleName())
+                    .warmupIterations(5)
+                    .measurementIterations(5)
+                    .forks(1)
+                    .mode(Mode.AverageTime)
+                    .measurementTime(TimeValue.seconds(time))
+                    .timeUnit(TimeUnit.NANOSECONDS)
+                    .build();
+
+            new Runner(opt).run();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++)
+            sb.append((char) ('A' + i % 26));
+        text = sb.toString();
+        address = MEMORY.allocate(length);
+        for (int i = 0; i < length; i++)
+            MEMORY.writeByte(address + i, (byte) text.charAt(i));
+    }
+
+    @TearDown
+    public void tearDown() {
+        MEMORY.freeMemory(address, length);
+    }
+
+    @Benchmark
+    public long hash64String() {
+        return Maths.hash64(text);
+    }
+
+    @Benchmark
+    public long hash64Address() {
+        return Maths.hash64(address, length);
+    }
+
+    @Benchmark
+    public long wordHash64Address() {
+        return Maths.wordHash64(address, length);
+    }
+}
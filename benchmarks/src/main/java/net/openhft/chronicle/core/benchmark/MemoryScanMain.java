@@ -0,0 +1,122 @@
+/*
+ *     Copyright (C) 2015-2020 chronicle.software
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.openhft.chronicle.core.benchmark;
+
+import net.openhft.chronicle.core.Jvm;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/*
+ * Compares the word at a time Memory.compare, mismatch and indexOf with a byte at a time readByte loop.
+ * Run with -Dsize=N to change the number of bytes scanned.
+ */
+@State(Scope.Thread)
+public class MemoryScanMain {
+    static final int SIZE = Integer.getInteger("size", 64);
+
+    long addrA;
+    long addrB;
+
+    public static void main(String... args) throws RunnerException, InvocationTargetException, IllegalAccessException {
+        if (Jvm.isDebug()) {
+            MemoryScanMain main = new MemoryScanMain();
+            main.setup();
+            for (Method m : MemoryScanMain.class.getMethods()) {
+                if (m.getAnnotation(Benchmark.class) != null) {
+                    m.invoke(main);
+                }
+            }
+            main.tearDown();
+        } else {
+            int time = Jvm.getBoolean("longTest") ? 5 : 1;
+            System.out.println("measurementTime: " + time + " secs");
+            Options opt = new OptionsBuilder()
+                    .include(MemoryScanMain.class.getSimpleName())
+                    .warmupIterations(5)
+                    .measurementIterations(5)
+                    .forks(1)
+                    .mode(Mode.AverageTime)
+                    .measurementTime(TimeValue.seconds(time))
+                    .timeUnit(TimeUnit.NANOSECONDS)
+                    .build();
+
+            new Runner(opt).run();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        addrA = MEMORY.allocate(SIZE);
+        addrB = MEMORY.allocate(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            MEMORY.writeByte(addrA + i, (byte) ('A' + i % 26));
+            MEMORY.writeByte(addrB + i, (byte) ('A' + i % 26));
+        }
+        // the delimiter and the difference are both in the last byte
+        MEMORY.writeByte(addrA + SIZE - 1, (byte) '|');
+    }
+
+    @TearDown
+    public void tearDown() {
+        MEMORY.freeMemory(addrA, SIZE);
+        MEMORY.freeMemory(addrB, SIZE);
+    }
+
+    @Benchmark
+    public int compareByteLoop() {
+        for (int i = 0; i < SIZE; i++) {
+            int a = MEMORY.readByte(addrA + i) & 0xFF;
+            int b = MEMORY.readByte(addrB + i) & 0xFF;
+            if (a != b)
+                return a - b;
+        }
+        return 0;
+    }
+
+    @Benchmark
+    public int compareWords() {
+        return MEMORY.compare(addrA, addrB, SIZE);
+    }
+
+    @Benchmark
+    public int mismatchWords() {
+        return MEMORY.mismatch(addrA, addrB, SIZE);
+    }
+
+    @Benchmark
+    public int indexOfByteLoop() {
+        for (int i = 0; i < SIZE; i++)
+            if (MEMORY.readByte(addrA + i) == '|')
+                return i;
+        return -1;
+    }
+
+    @Benchmark
+    public int indexOfWords() {
+        return MEMORY.indexOf(addrA, SIZE, (byte) '|');
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core;
+
+import net.openhft.chronicle.core.shutdown.PriorityHook;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unmaps regions of memory on a background thread so the cost of <code>munmap</code>, and the TLB shootdowns it causes,
+ * is not paid by the thread releasing the mapping.
+ * <p>
+ * Regions are queued and released in batches. On platforms other than Windows, adjacent regions in a batch
+ * are released with a single call. {@link OS#memoryMapped()} is reduced when a region is actually unmapped,
+ * so it continues to reflect the memory still mapped, and {@link #pendingBytes()} gives the size of the regions queued.
+ * <p>
+ * If the queue is full, or the background thread is disabled with <code>-DasyncUnmapper=false</code>,
+ * the region is unmapped by the calling thread.
+ */
+public final class AsyncUnmapper {
+    public static final String ASYNC_UNMAPPER = "async~unmapper";
+    static final boolean ASYNC_UNMAPPER_ENABLED = Jvm.getBoolean("asyncUnmapper", true);
+    private static final int BATCH_SIZE = 64;
+    private static final BlockingQueue<Region> REGIONS = new ArrayBlockingQueue<>(1024);
+    private static final AtomicLong PENDING_BYTES = new AtomicLong();
+    private static final AtomicLong PENDING_COUNT = new AtomicLong();
+    private static final Thread UNMAPPER = ASYNC_UNMAPPER_ENABLED ? runUnmapperThread() : null;
+
+    static {
+        PriorityHook.add(99, AsyncUnmapper::flush);
+    }
+
+    // Suppresses default constructor, ensuring non-instantiability.
+    private AsyncUnmapper() {
+    }
+
+    private static Thread runUnmapperThread() {
+        Thread thread = new Thread(AsyncUnmapper::runUnmapper, ASYNC_UNMAPPER);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void runUnmapper() {
+        final List<Region> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            for (; ; ) {
+                batch.add(REGIONS.take());
+                REGIONS.drainTo(batch, BATCH_SIZE - 1);
+                unmapBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Restore the interrupt state...
+            Thread.currentThread().interrupt();
+            Jvm.warn().on(AsyncUnmapper.class, "Died on interrupt");
+        }
+    }
+
+    /**
+     * Queues a region to be unmapped by the background thread.
+     *
+     * @param address of the start of the mapping.
+     * @param size    of the region mapped.
+     */
+    public static void unmap(long address, long size) {
+        final Region region = new Region(address, OS.pageAlign(size));
+        if (UNMAPPER != null) {
+            PENDING_COUNT.incrementAndGet();
+            PENDING_BYTES.addAndGet(region.size);
+            if (REGIONS.offer(region))
+                return;
+            PENDING_COUNT.decrementAndGet();
+            PENDING_BYTES.addAndGet(-region.size);
+        }
+        unmap(region, 0);
+    }
+
+    /**
+     * Unmaps all the regions queued, waiting for any batch the background thread is releasing.
+     * This is called on shutdown.
+     */
+    public static void flush() {
+        boolean interrupted = Thread.interrupted();
+        try {
+            final List<Region> batch = new ArrayList<>(BATCH_SIZE);
+            while (REGIONS.drainTo(batch, BATCH_SIZE) > 0) {
+                unmapBatch(batch);
+                batch.clear();
+            }
+            if (!interrupted)
+                for (int i = 0; i < 1000 && PENDING_COUNT.get() > 0; i++)
+                    Thread.sleep(1);
+            long left = PENDING_COUNT.get();
+            if (left != 0)
+                Jvm.perf().on(AsyncUnmapper.class, "Still got " + left + " regions to unmap");
+
+        } catch (InterruptedException e) {
+            Jvm.warn().on(AsyncUnmapper.class, "Interrupted in flush");
+            interrupted = true;
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of bytes queued but not yet unmapped.
+     */
+    public static long pendingBytes() {
+        return PENDING_BYTES.get();
+    }
+
+    /**
+     * Is the current thread the background unmapper thread?
+     *
+     * @return true if the current thread is the background unmapper thread
+     */
+    public static boolean isOnAsyncUnmapperThread() {
+        return Thread.currentThread() == UNMAPPER;
+    }
+
+    private static void unmapBatch(List<Region> batch) {
+        if (OS.isWindows()) {
+            // UnmapViewOfFile releases exactly one view
+            for (Region region : batch)
+                unmap(region, 1);
+            return;
+        }
+        batch.sort(Comparator.comparingLong(r -> r.address));
+        Region merged = null;
+        int count = 0;
+        for (Region region : batch) {
+            if (merged != null && merged.address + merged.size == region.address) {
+                merged = new Region(merged.address, merged.size + region.size);
+                count++;
+                continue;
+            }
+            if (merged != null)
+                unmap(merged, count);
+            merged = region;
+            count = 1;
+        }
+        if (merged != null)
+            unmap(merged, count);
+    }
+
+    private static void unmap(Region region, int queued) {
+        try {
+            OS.unmap(region.address, region.size);
+        } catch (IOException e) {
+            Jvm.warn().on(AsyncUnmapper.class, "Error on unmap of " + Long.toHexString(region.address), e);
+        } finally {
+            if (queued > 0) {
+                PENDING_BYTES.addAndGet(-region.size);
+                PENDING_COUNT.addAndGet(-queued);
+            }
+        }
+    }
+
+    static final class Region {
+        final long address;
+        final long size;
+
+        Region(long address, long size) {
+            this.address = address;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Hashes a composite key field by field without building a temporary String, finishing with {@link Maths#agitate(long)}.
+ * <p>
+ * The first field hashes the same as the matching {@code Maths.hash64} method, e.g. {@code Hasher.acquire().add(s).hash64() == Maths.hash64(s)}.
+ * Text and byte fields after the first are prefixed by their length, so {@code ("ab", "c")} and {@code ("a", "bc")} hash differently.
+ * <p>
+ * A Hasher is not thread safe, {@link #acquire()} returns one reset for the current thread.
+ */
+public final class Hasher {
+    private static final ThreadLocal<Hasher> HASHERS = ThreadLocal.withInitial(Hasher::new);
+    private static final long FIELD_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private long hash;
+    private int fields;
+
+    /**
+     * @return the Hasher for the current thread, reset
+     */
+    @NotNull
+    public static Hasher acquire() {
+        return HASHERS.get().reset();
+    }
+
+    @NotNull
+    public Hasher reset() {
+        hash = 0;
+        fields = 0;
+        return this;
+    }
+
+    @NotNull
+    public Hasher add(long value) {
+        hash = hash * FIELD_MULTIPLIER + Maths.rawHash64(value);
+        fields++;
+        return this;
+    }
+
+    @NotNull
+    public Hasher add(int value) {
+        return add((long) value);
+    }
+
+    /**
+     * @param cs to add, null is distinct from an empty CharSequence except as the first field
+     */
+    @NotNull
+    public Hasher add(@Nullable CharSequence cs) {
+        startField(cs == null ? -1 : cs.length());
+        if (cs instanceof String) {
+            hash = Maths.rawHash64(hash, (String) cs);
+        } else if (cs instanceof StringBuilder) {
+            hash = Maths.rawHash64(hash, (StringBuilder) cs);
+        } else if (cs != null) {
+            long h = hash;
+            for (int i = 0, len = cs.length(); i < len; i++)
+                h = h * 0x32246e3d + cs.charAt(i);
+            hash = h;
+        }
+        return this;
+    }
+
+    @NotNull
+    public Hasher add(@NotNull byte[] bytes, int offset, int length) {
+        startField(length);
+        hash = Maths.rawHash64(hash, bytes, offset, length);
+        return this;
+    }
+
+    /**
+     * Adds bytes in native memory, hashed the same as a 7-bit CharSequence with the same characters.
+     *
+     * @param address of the first byte
+     * @param length  number of bytes
+     * @return this
+     */
+    @NotNull
+    public Hasher add(long address, int length) {
+        startField(length);
+        hash = Maths.rawHash64(hash, address, length);
+        return this;
+    }
+
+    private void startField(int length) {
+        if (fields++ > 0)
+            hash = hash * FIELD_MULTIPLIER + length;
+    }
+
+    /**
+     * @return the hash of the fields added since the last reset
+     */
+    public long hash64() {
+        return Maths.agitate(hash);
+    }
+
+    public int hash32() {
+        long h = hash64();
+        h ^= h >> 32;
+        return (int) h;
+    }
+}
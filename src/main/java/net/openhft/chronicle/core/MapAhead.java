@@ -0,0 +1,269 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core;
+
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.annotation.Positive;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+import net.openhft.chronicle.core.io.ClosedIllegalStateException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maps and pre-faults the chunks of a file ahead of a sequential writer or reader, on a dedicated thread,
+ * so the page faults on first touch are not paid when the next chunk is reached.
+ * <p>
+ * Each chunk is mapped with {@link OS#map(FileChannel, FileChannel.MapMode, long, long, MapHint...)}.
+ * When acquiring chunk N, chunks N + 1 to N + lookAhead are prepared in the background.
+ * For {@link FileChannel.MapMode#READ_WRITE} the file is extended and every page is touched for writing,
+ * otherwise only the pages within the file are touched.
+ * <p>
+ * {@link #caughtUp()} counts the chunks which were not ready when acquired, either the caller waited for the
+ * background thread or mapped the chunk itself.
+ */
+public class MapAhead extends AbstractCloseable {
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private final long chunkSize;
+    private final int lookAhead;
+    private final Thread prefetcher;
+    // chunk index to address, guarded by this
+    private final Map<Long, Long> mapped = new HashMap<>();
+    private final AtomicLong ready = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong missed = new AtomicLong();
+    // guarded by this
+    private long nextToMap = 0;
+    private long mapLimit = -1;
+    private long inProgress = -1;
+
+    /**
+     * @param channel   of the file to map
+     * @param mode      of access
+     * @param chunkSize the size of each chunk, rounded up to the map alignment
+     * @param lookAhead the number of chunks to prepare beyond the last one acquired
+     */
+    public MapAhead(@NotNull FileChannel channel, @NotNull FileChannel.MapMode mode, @Positive long chunkSize, @Positive int lookAhead) {
+        if (chunkSize <= 0 || lookAhead <= 0)
+            throw new IllegalArgumentException("chunkSize: " + chunkSize + ", lookAhead: " + lookAhead);
+        this.channel = channel;
+        this.mode = mode;
+        this.chunkSize = OS.mapAlign(chunkSize);
+        this.lookAhead = lookAhead;
+        singleThreadedCheckDisabled(true);
+        prefetcher = new Thread(this::runPrefetcher, "map~ahead");
+        prefetcher.setDaemon(true);
+        prefetcher.start();
+    }
+
+    /**
+     * Returns the address of a chunk, mapping it if the background thread hasn't already, and schedules the chunks which follow.
+     *
+     * @param chunk index of the chunk
+     * @return the address of the start of the chunk
+     * @throws IOException                 if the chunk could not be mapped
+     * @throws ClosedIllegalStateException if this has been closed
+     */
+    public long acquire(@NonNegative long chunk) throws IOException, IllegalStateException {
+        throwExceptionIfClosed();
+        synchronized (this) {
+            if (mapLimit < chunk + lookAhead) {
+                mapLimit = chunk + lookAhead;
+                nextToMap = Math.max(nextToMap, chunk);
+                notifyAll();
+            }
+            Long address = mapped.get(chunk);
+            if (address != null) {
+                ready.incrementAndGet();
+                return address;
+            }
+            if (inProgress == chunk) {
+                waited.incrementAndGet();
+                while (inProgress == chunk)
+                    waitForPrefetcher();
+                address = mapped.get(chunk);
+                if (address != null)
+                    return address;
+            } else {
+                missed.incrementAndGet();
+                // nextToMap >= chunk so the background thread won't map this one as well
+                if (nextToMap == chunk)
+                    nextToMap++;
+            }
+        }
+        // the background thread has failed or not reached this chunk
+        return addMapped(chunk, mapChunk(chunk));
+    }
+
+    /**
+     * Releases a chunk once it is no longer needed, the unmapping is done by the {@link AsyncUnmapper}.
+     *
+     * @param chunk index of the chunk
+     */
+    public void release(@NonNegative long chunk) {
+        final Long address;
+        synchronized (this) {
+            address = mapped.remove(chunk);
+        }
+        if (address != null)
+            AsyncUnmapper.unmap(address, chunkSize);
+    }
+
+    public long chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return the number of chunks which were ready when acquired
+     */
+    public long ready() {
+        return ready.get();
+    }
+
+    /**
+     * @return the number of chunks which were not ready when acquired
+     */
+    public long caughtUp() {
+        return waited.get() + missed.get();
+    }
+
+    /**
+     * @return the number of chunks acquired while the background thread was still preparing them
+     */
+    public long waited() {
+        return waited.get();
+    }
+
+    private void waitForPrefetcher() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for chunk", e);
+        }
+    }
+
+    private void runPrefetcher() {
+        try {
+            while (!isClosing()) {
+                final long chunk;
+                synchronized (this) {
+                    while (!isClosing() && (nextToMap > mapLimit || mapped.containsKey(nextToMap))) {
+                        if (nextToMap <= mapLimit)
+                            nextToMap++;
+                        else
+                            wait();
+                    }
+                    if (isClosing())
+                        break;
+                    chunk = nextToMap++;
+                    inProgress = chunk;
+                }
+                long address = 0;
+                try {
+                    address = mapChunk(chunk);
+                } catch (IOException e) {
+                    Jvm.warn().on(MapAhead.class, "Unable to map chunk " + chunk, e);
+                } finally {
+                    synchronized (this) {
+                        if (address != 0)
+                            addMapped(chunk, address);
+                        inProgress = -1;
+                        notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized long addMapped(long chunk, long address) {
+        final Long previous = mapped.putIfAbsent(chunk, address);
+        if (previous == null)
+            return address;
+        AsyncUnmapper.unmap(address, chunkSize);
+        return previous;
+    }
+
+    private long mapChunk(long chunk) throws IOException {
+        final long start = chunk * chunkSize;
+        final boolean writable = mode == FileChannel.MapMode.READ_WRITE;
+        if (writable)
+            ensureSize(start + chunkSize);
+        final long address = writable
+                ? OS.map(channel, mode, start, chunkSize, MapHint.SEQUENTIAL)
+                : OS.map(channel, mode, start, chunkSize, MapHint.SEQUENTIAL, MapHint.POPULATE);
+        if (writable)
+            touchForWrite(address);
+        return address;
+    }
+
+    private void ensureSize(long size) throws IOException {
+        synchronized (channel) {
+            if (channel.size() < size)
+                channel.write(ByteBuffer.wrap(new byte[1]), size - 1);
+        }
+    }
+
+    private void touchForWrite(long address) {
+        // an atomic update which doesn't change the value still takes the write fault
+        final Memory memory = OS.memory();
+        final int pageSize = OS.pageSize();
+        for (long i = 0; i < chunkSize; i += pageSize) {
+            final int value = memory.readVolatileInt(address + i);
+            memory.compareAndSwapInt(address + i, value, value);
+        }
+    }
+
+    @Override
+    protected void performClose() {
+        // interrupting the prefetcher could close the channel, so it is woken and stops as this is closing
+        synchronized (this) {
+            notifyAll();
+        }
+        try {
+            prefetcher.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (long address : mapped.values())
+                AsyncUnmapper.unmap(address, chunkSize);
+            mapped.clear();
+            notifyAll();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MapAhead{" +
+                "chunkSize=" + chunkSize +
+                ", lookAhead=" + lookAhead +
+                ", ready=" + ready() +
+                ", caughtUp=" + caughtUp() +
+                '}';
+    }
+}
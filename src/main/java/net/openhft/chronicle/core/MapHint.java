@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core;
+
+import net.openhft.posix.MAdviseFlag;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Access hints which can be passed to {@link OS#map(java.nio.channels.FileChannel, java.nio.channels.FileChannel.MapMode, long, long, MapHint...)}.
+ * <p>
+ * Apart from {@link #POPULATE}, hints are passed to <code>madvise</code> and are only applied on Linux.
+ * A hint the kernel or file system doesn't support is ignored.
+ */
+public enum MapHint {
+    /**
+     * Pages will be accessed in order, so read ahead aggressively and free pages soon after they are accessed.
+     */
+    SEQUENTIAL(MAdviseFlag.MADV_SEQUENTIAL),
+    /**
+     * Pages will be accessed in random order, so read ahead is of little use.
+     */
+    RANDOM(MAdviseFlag.MADV_RANDOM),
+    /**
+     * Pages will be accessed soon, so start reading them in the background.
+     */
+    WILLNEED(MAdviseFlag.MADV_WILLNEED),
+    /**
+     * Back the mapping with transparent huge pages where the file system supports it, e.g. tmpfs.
+     */
+    HUGEPAGE(MAdviseFlag.MADV_HUGEPAGE),
+    /**
+     * Fault in every page of the mapping before returning, like <code>MAP_POPULATE</code>,
+     * so the first access of each page doesn't stall the caller.
+     * Only the part of the mapping within the current length of the file is touched.
+     */
+    POPULATE(null);
+
+    @Nullable
+    final MAdviseFlag flag;
+
+    MapHint(@Nullable MAdviseFlag flag) {
+        this.flag = flag;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core;
+
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.annotation.Positive;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+import net.openhft.chronicle.core.io.AbstractReferenceCounted;
+import net.openhft.chronicle.core.io.ClosedIllegalStateException;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.io.ReferenceOwner;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+import static net.openhft.chronicle.core.io.ReferenceOwner.INIT;
+
+/**
+ * Maps fixed size chunks of files on demand and shares them between readers, keyed by file and chunk index.
+ * <p>
+ * Each {@link MappedRegion} is reference counted. The cache holds the initial reference while a region is cached,
+ * and each {@link #acquire(File, long, ReferenceOwner)} adds one for the caller, who must release it when done.
+ * When mapping another chunk would exceed the virtual memory budget, the least recently used regions which only
+ * the cache references are evicted. The region is unmapped with {@link OS#unmap(long, long)} once its last reference is released.
+ * <p>
+ * Regions still referenced are never evicted, so the budget can be exceeded while they are held.
+ */
+public class MappedRegionCache extends AbstractCloseable {
+    private final FileChannel.MapMode mode;
+    private final long chunkSize;
+    private final long budget;
+    // guarded by this, in access order so the eldest entry is the least recently used
+    private final LinkedHashMap<RegionKey, MappedRegion> regions = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<File, RandomAccessFile> files = new HashMap<>();
+    private long mappedBytes = 0;
+    private long evictions = 0;
+
+    /**
+     * @param mode      of access to the files
+     * @param chunkSize the size of each region, rounded up to the map alignment
+     * @param budget    the virtual memory to keep mapped before evicting regions
+     */
+    public MappedRegionCache(@NotNull FileChannel.MapMode mode, @Positive long chunkSize, @Positive long budget) {
+        if (mode == FileChannel.MapMode.PRIVATE)
+            throw new IllegalArgumentException("PRIVATE mappings can't be shared");
+        if (chunkSize <= 0 || budget <= 0)
+            throw new IllegalArgumentException("chunkSize: " + chunkSize + ", budget: " + budget);
+        this.mode = mode;
+        this.chunkSize = OS.mapAlign(chunkSize);
+        this.budget = budget;
+        singleThreadedCheckDisabled(true);
+    }
+
+    /**
+     * Returns the region for a chunk of a file, mapping it if it isn't cached, reserved for {@code owner}.
+     *
+     * @param file  to map
+     * @param chunk index, the region starts at {@code chunk * chunkSize()}
+     * @param owner to reserve the region for, which must release it
+     * @return the region reserved
+     * @throws IOException                 if the file can't be opened or mapped
+     * @throws ClosedIllegalStateException if this cache has been closed
+     */
+    public synchronized MappedRegion acquire(@NotNull File file, @NonNegative long chunk, @NotNull ReferenceOwner owner) throws IOException, IllegalStateException {
+        throwExceptionIfClosed();
+        final RegionKey key = new RegionKey(file, chunk);
+        MappedRegion region = regions.get(key);
+        if (region == null) {
+            evictUnreferenced(budget - chunkSize);
+            region = map(key);
+            regions.put(key, region);
+            mappedBytes += chunkSize;
+        }
+        region.reserve(owner);
+        return region;
+    }
+
+    private MappedRegion map(RegionKey key) throws IOException {
+        RandomAccessFile raf = files.get(key.file);
+        if (raf == null) {
+            raf = new RandomAccessFile(key.file, mode == FileChannel.MapMode.READ_WRITE ? "rw" : "r");
+            files.put(key.file, raf);
+        }
+        final long start = key.chunk * chunkSize;
+        if (mode == FileChannel.MapMode.READ_WRITE && raf.length() < start + chunkSize)
+            raf.setLength(start + chunkSize);
+        final long address = OS.map(raf.getChannel(), mode, start, chunkSize);
+        return new MappedRegion(key.file, key.chunk, address, chunkSize);
+    }
+
+    /**
+     * Evicts the least recently used regions only the cache references until the memory mapped is at most {@code target}.
+     */
+    private void evictUnreferenced(long target) {
+        for (Iterator<MappedRegion> iter = regions.values().iterator(); mappedBytes > target && iter.hasNext(); ) {
+            final MappedRegion region = iter.next();
+            if (region.refCount() > 1)
+                continue;
+            iter.remove();
+            mappedBytes -= region.size;
+            evictions++;
+            region.release(INIT);
+        }
+    }
+
+    /**
+     * Evicts all the regions which are not referenced outside the cache.
+     */
+    public synchronized void evictAll() {
+        evictUnreferenced(0);
+    }
+
+    public long chunkSize() {
+        return chunkSize;
+    }
+
+    public long budget() {
+        return budget;
+    }
+
+    /**
+     * @return the bytes mapped by the regions in the cache
+     */
+    public synchronized long mappedBytes() {
+        return mappedBytes;
+    }
+
+    /**
+     * @return the number of regions in the cache
+     */
+    public synchronized int regions() {
+        return regions.size();
+    }
+
+    /**
+     * @return the number of regions evicted to stay within the budget
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    @Override
+    protected synchronized void performClose() {
+        // regions still referenced are unmapped when their owners release them
+        for (MappedRegion region : regions.values())
+            region.release(INIT);
+        regions.clear();
+        mappedBytes = 0;
+        Closeable.closeQuietly(files.values());
+        files.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "MappedRegionCache{" +
+                "chunkSize=" + chunkSize +
+                ", budget=" + budget +
+                ", mappedBytes=" + mappedBytes() +
+                ", evictions=" + evictions() +
+                '}';
+    }
+
+    static final class RegionKey {
+        final File file;
+        final long chunk;
+
+        RegionKey(File file, long chunk) {
+            this.file = file;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RegionKey)) return false;
+            RegionKey that = (RegionKey) o;
+            return chunk == that.chunk && file.equals(that.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return file.hashCode() * 31 + Long.hashCode(chunk);
+        }
+    }
+
+    /**
+     * A chunk of a file mapped into memory, unmapped when the last reference is released.
+     */
+    public static final class MappedRegion extends AbstractReferenceCounted {
+        private final File file;
+        private final long chunk;
+        private final long address;
+        private final long size;
+
+        MappedRegion(File file, long chunk, long address, long size) {
+            this.file = file;
+            this.chunk = chunk;
+            this.address = address;
+            this.size = size;
+            singleThreadedCheckDisabled(true);
+        }
+
+        public File file() {
+            return file;
+        }
+
+        public long chunk() {
+            return chunk;
+        }
+
+        /**
+         * @return the address of the start of the region
+         * @throws ClosedIllegalStateException if the region has been released
+         */
+        public long address() throws IllegalStateException {
+            throwExceptionIfReleased();
+            return address;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        @Override
+        protected void performRelease() {
+            try {
+                OS.unmap(address, size);
+            } catch (IOException e) {
+                Jvm.warn().on(MappedRegion.class, "Error on unmap of " + file + " chunk " + chunk, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "MappedRegion{" +
+                    "file=" + file +
+                    ", chunk=" + chunk +
+                    ", refCount=" + refCount() +
+                    '}';
+        }
+    }
+}
@@ -23,9 +23,12 @@ import net.openhft.chronicle.core.annotation.NonNegative;
 import net.openhft.chronicle.core.util.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import sun.misc.Unsafe;
 
 import java.util.Arrays;
 
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
 public final class Maths {
 
     // Suppresses default constructor, ensuring non-instantiability.
@@ -38,6 +41,13 @@ public final class Maths {
     private static final double WHOLE_NUMBER = 1L << 52;
     private static final int M0 = 0x5bc80bad;
     private static final int M1 = 0xea7585d7;
+    // powers of the multiplier used by the String hashes, so bytes can be combined four at a time
+    private static final long K1 = 0x32246e3d;
+    private static final long K2 = K1 * K1;
+    private static final long K3 = K2 * K1;
+    private static final long K4 = K3 * K1;
+    private static final long WORD_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final long ARRAY_BYTE_BASE_OFFSET = Unsafe.ARRAY_BYTE_BASE_OFFSET;
     private static final long[] TENS = new long[19];
     private static final long[] FIVES = new long[28];
     private static final String OUT_OF_RANGE = " out of range";
@@ -521,8 +531,11 @@ public final class Maths {
     }
 
     public static long hash64(@NotNull String s) {
-        long hash = 0;
+        return agitate(rawHash64(0, s));
+    }
 
+    // continues the hash of hash64(String) before it is agitated
+    static long rawHash64(long hash, @NotNull String s) {
         if (Jvm.isJava9Plus()) {
             if (StringUtils.getStringCoder(s) == 0) {
                 final byte[] bytes = StringUtils.extractBytes(s);
@@ -537,12 +550,15 @@ public final class Maths {
             for (int i = 0, len = s.length(); i < len; i++)
                 hash = hash * 0x32246e3d + chars[i];
         }
-        return agitate(hash);
+        return hash;
     }
 
     public static long hash64(@NotNull StringBuilder s) {
-        long hash = 0;
+        return agitate(rawHash64(0, s));
+    }
 
+    // continues the hash of hash64(StringBuilder) before it is agitated
+    static long rawHash64(long hash, @NotNull StringBuilder s) {
         if (Jvm.isJava9Plus()) {
             if (StringUtils.getStringCoder(s) == 0) {
                 final byte[] bytes = StringUtils.extractBytes(s);
@@ -558,9 +574,110 @@ public final class Maths {
             for (int i = 0, len = s.length(); i < len; i++)
                 hash = hash * 0x32246e3d + chars[i];
         }
+        return hash;
+    }
+
+    /**
+     * Hashes bytes in native memory, giving the same result as {@link #hash64(String)} for 7-bit text,
+     * and for 8-bit text stored as Latin-1 on Java 9+, so a key can be looked up without creating a String.
+     * <p>
+     * Four bytes are combined per step to shorten the chain of dependent multiplies.
+     *
+     * @param address of the first byte
+     * @param length  number of bytes
+     * @return hash value.
+     */
+    public static long hash64(long address, int length) {
+        return agitate(rawHash64(0, address, length));
+    }
+
+    // continues the hash of hash64(long, int) before it is agitated
+    static long rawHash64(long hash, long address, int length) {
+        int i = 0;
+        for (; i < length - 3; i += 4)
+            hash = hash * K4 + MEMORY.readByte(address + i) * K3 + MEMORY.readByte(address + i + 1) * K2
+                    + MEMORY.readByte(address + i + 2) * K1 + MEMORY.readByte(address + i + 3);
+        for (; i < length; i++)
+            hash = hash * K1 + MEMORY.readByte(address + i);
+        return hash;
+    }
+
+    /**
+     * Hashes a range of a byte[], giving the same result as {@link #hash64(long, int)} for the same bytes.
+     *
+     * @param bytes  to hash
+     * @param offset of the first byte
+     * @param length number of bytes
+     * @return hash value.
+     */
+    public static long hash64(@NotNull byte[] bytes, int offset, int length) {
+        return agitate(rawHash64(0, bytes, offset, length));
+    }
+
+    // continues the hash of hash64(byte[], int, int) before it is agitated
+    static long rawHash64(long hash, @NotNull byte[] bytes, int offset, int length) {
+        int i = offset;
+        final int end = offset + length;
+        for (; i < end - 3; i += 4)
+            hash = hash * K4 + bytes[i] * K3 + bytes[i + 1] * K2 + bytes[i + 2] * K1 + bytes[i + 3];
+        for (; i < end; i++)
+            hash = hash * K1 + bytes[i];
+        return hash;
+    }
+
+    public static int hash32(long address, int length) {
+        long h = hash64(address, length);
+        h ^= h >> 32;
+        return (int) h;
+    }
+
+    public static int hash32(@NotNull byte[] bytes, int offset, int length) {
+        long h = hash64(bytes, offset, length);
+        h ^= h >> 32;
+        return (int) h;
+    }
+
+    /**
+     * Hashes bytes in native memory eight at a time. This is faster than {@link #hash64(long, int)} for longer keys
+     * but is not consistent with the String hashes, and depends on the native byte order.
+     *
+     * @param address of the first byte
+     * @param length  number of bytes
+     * @return hash value.
+     */
+    public static long wordHash64(long address, int length) {
+        long hash = length;
+        int i = 0;
+        for (; i < length - 7; i += 8)
+            hash = mixWord(hash, MEMORY.readLong(address + i));
+        if (i < length)
+            hash = mixWord(hash, MEMORY.partialRead(address + i, length - i));
         return agitate(hash);
     }
 
+    /**
+     * Hashes a range of a byte[] eight bytes at a time, giving the same result as {@link #wordHash64(long, int)} for the same bytes.
+     *
+     * @param bytes  to hash
+     * @param offset of the first byte
+     * @param length number of bytes
+     * @return hash value.
+     */
+    public static long wordHash64(@NotNull byte[] bytes, int offset, int length) {
+        long hash = length;
+        int i = 0;
+        for (; i < length - 7; i += 8)
+            hash = mixWord(hash, MEMORY.readLong(bytes, ARRAY_BYTE_BASE_OFFSET + offset + i));
+        if (i < length)
+            hash = mixWord(hash, MEMORY.partialRead(bytes, offset + i, length - i));
+        return agitate(hash);
+    }
+
+    private static long mixWord(long hash, long word) {
+        hash = (hash + word) * WORD_MULTIPLIER;
+        return hash ^ (hash >>> 31);
+    }
+
     /**
      * Returns rounded down log<sub>2</sub>{@code num}, e. g.: {@code intLog2(1) == 0},
      * {@code intLog2(2) == 1}, {@code intLog2(7) == 2}, {@code intLog2(8) == 3}, etc.
@@ -699,11 +816,14 @@ public final class Maths {
      * @return hash value.
      */
     public static long hash64(long l0) {
-        int l0a = (int) (l0 >> 32);
+        return agitate(rawHash64(l0));
+    }
 
-        long h0 = l0 * M0 + l0a * M1;
+    // hash64(long) before it is agitated
+    static long rawHash64(long l0) {
+        int l0a = (int) (l0 >> 32);
 
-        return agitate(h0);
+        return l0 * M0 + l0a * M1;
     }
 
     /**
@@ -735,6 +855,20 @@ public final class Maths {
         return sign * (Math.abs(dividend) + Math.abs(divisor) - 1) / Math.abs(divisor);
     }
 
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of two longs, as Math.unsignedMultiplyHigh does in Java 18+.
+     */
+    public static long unsignedMultiplyHigh(long x, long y) {
+        final long x0 = x & 0xFFFF_FFFFL;
+        final long x1 = x >>> 32;
+        final long y0 = y & 0xFFFF_FFFFL;
+        final long y1 = y >>> 32;
+        final long p01 = x0 * y1;
+        final long p10 = x1 * y0;
+        final long middle = p10 + ((x0 * y0) >>> 32) + (p01 & 0xFFFF_FFFFL);
+        return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+    }
+
     public static long tens(int decimalPlaces) {
         return TENS[decimalPlaces];
     }
@@ -128,6 +128,164 @@ public interface Memory {
 
     void copyMemory(long fromAddress, Object obj2, long offset2, int length);
 
+    /**
+     * Copies {@code count} bytes from {@code src} starting at {@code srcIndex} to native memory.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(byte[] src, int srcIndex, long address, int count);
+
+    /**
+     * Copies {@code count} bytes from native memory to {@code dest} starting at {@code destIndex}.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(long address, byte[] dest, int destIndex, int count);
+
+    /**
+     * Copies {@code count} shorts from {@code src} starting at {@code srcIndex} to native memory in native byte order.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(short[] src, int srcIndex, long address, int count);
+
+    /**
+     * Copies {@code count} shorts from native memory in native byte order to {@code dest} starting at {@code destIndex}.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(long address, short[] dest, int destIndex, int count);
+
+    /**
+     * As {@link #copy(short[], int, long, int)} but reverses the bytes of each value, e.g. to write big-endian on a little-endian machine.
+     */
+    void copySwapped(short[] src, int srcIndex, long address, int count);
+
+    /**
+     * As {@link #copy(long, short[], int, int)} but reverses the bytes of each value, e.g. to read big-endian on a little-endian machine.
+     */
+    void copySwapped(long address, short[] dest, int destIndex, int count);
+
+    /**
+     * Copies {@code count} chars from {@code src} starting at {@code srcIndex} to native memory in native byte order.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(char[] src, int srcIndex, long address, int count);
+
+    /**
+     * Copies {@code count} chars from native memory in native byte order to {@code dest} starting at {@code destIndex}.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(long address, char[] dest, int destIndex, int count);
+
+    /**
+     * As {@link #copy(char[], int, long, int)} but reverses the bytes of each value, e.g. to write big-endian on a little-endian machine.
+     */
+    void copySwapped(char[] src, int srcIndex, long address, int count);
+
+    /**
+     * As {@link #copy(long, char[], int, int)} but reverses the bytes of each value, e.g. to read big-endian on a little-endian machine.
+     */
+    void copySwapped(long address, char[] dest, int destIndex, int count);
+
+    /**
+     * Copies {@code count} ints from {@code src} starting at {@code srcIndex} to native memory in native byte order.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(int[] src, int srcIndex, long address, int count);
+
+    /**
+     * Copies {@code count} ints from native memory in native byte order to {@code dest} starting at {@code destIndex}.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(long address, int[] dest, int destIndex, int count);
+
+    /**
+     * As {@link #copy(int[], int, long, int)} but reverses the bytes of each value, e.g. to write big-endian on a little-endian machine.
+     */
+    void copySwapped(int[] src, int srcIndex, long address, int count);
+
+    /**
+     * As {@link #copy(long, int[], int, int)} but reverses the bytes of each value, e.g. to read big-endian on a little-endian machine.
+     */
+    void copySwapped(long address, int[] dest, int destIndex, int count);
+
+    /**
+     * Copies {@code count} floats from {@code src} starting at {@code srcIndex} to native memory in native byte order.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(float[] src, int srcIndex, long address, int count);
+
+    /**
+     * Copies {@code count} floats from native memory in native byte order to {@code dest} starting at {@code destIndex}.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(long address, float[] dest, int destIndex, int count);
+
+    /**
+     * As {@link #copy(float[], int, long, int)} but reverses the bytes of each value, e.g. to write big-endian on a little-endian machine.
+     */
+    void copySwapped(float[] src, int srcIndex, long address, int count);
+
+    /**
+     * As {@link #copy(long, float[], int, int)} but reverses the bytes of each value, e.g. to read big-endian on a little-endian machine.
+     */
+    void copySwapped(long address, float[] dest, int destIndex, int count);
+
+    /**
+     * Copies {@code count} longs from {@code src} starting at {@code srcIndex} to native memory in native byte order.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(long[] src, int srcIndex, long address, int count);
+
+    /**
+     * Copies {@code count} longs from native memory in native byte order to {@code dest} starting at {@code destIndex}.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(long address, long[] dest, int destIndex, int count);
+
+    /**
+     * As {@link #copy(long[], int, long, int)} but reverses the bytes of each value, e.g. to write big-endian on a little-endian machine.
+     */
+    void copySwapped(long[] src, int srcIndex, long address, int count);
+
+    /**
+     * As {@link #copy(long, long[], int, int)} but reverses the bytes of each value, e.g. to read big-endian on a little-endian machine.
+     */
+    void copySwapped(long address, long[] dest, int destIndex, int count);
+
+    /**
+     * Copies {@code count} doubles from {@code src} starting at {@code srcIndex} to native memory in native byte order.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(double[] src, int srcIndex, long address, int count);
+
+    /**
+     * Copies {@code count} doubles from native memory in native byte order to {@code dest} starting at {@code destIndex}.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the range is outside the array
+     */
+    void copy(long address, double[] dest, int destIndex, int count);
+
+    /**
+     * As {@link #copy(double[], int, long, int)} but reverses the bytes of each value, e.g. to write big-endian on a little-endian machine.
+     */
+    void copySwapped(double[] src, int srcIndex, long address, int count);
+
+    /**
+     * As {@link #copy(long, double[], int, int)} but reverses the bytes of each value, e.g. to read big-endian on a little-endian machine.
+     */
+    void copySwapped(long address, double[] dest, int destIndex, int count);
+
     int stopBitLength(int i);
 
     int stopBitLength(long l);
@@ -146,6 +304,60 @@ public interface Memory {
 
     boolean is7Bit(long address, int length);
 
+    /**
+     * Compares two native memory regions as unsigned bytes, eight bytes at a time.
+     *
+     * @param addressA of the first region
+     * @param addressB of the second region
+     * @param length   number of bytes to compare
+     * @return zero if the regions are equal, negative if the first differing byte of A is less than that of B, otherwise positive
+     */
+    int compare(long addressA, long addressB, int length);
+
+    /**
+     * Compares two regions as unsigned bytes, eight bytes at a time.
+     * <p>If either object is {@code null}, its offset is treated as an address.
+     *
+     * @return zero if the regions are equal, negative if the first differing byte of A is less than that of B, otherwise positive
+     */
+    int compare(Object objectA, long offsetA, Object objectB, long offsetB, int length);
+
+    /**
+     * Finds the first byte that differs between two native memory regions, eight bytes at a time.
+     *
+     * @param addressA of the first region
+     * @param addressB of the second region
+     * @param length   number of bytes to compare
+     * @return the offset of the first differing byte, or -1 if the regions are equal
+     */
+    int mismatch(long addressA, long addressB, int length);
+
+    /**
+     * Finds the first byte that differs between two regions, eight bytes at a time.
+     * <p>If either object is {@code null}, its offset is treated as an address.
+     *
+     * @return the offset of the first differing byte, or -1 if the regions are equal
+     */
+    int mismatch(Object objectA, long offsetA, Object objectB, long offsetB, int length);
+
+    /**
+     * Searches native memory for a byte, eight bytes at a time.
+     *
+     * @param address to start from
+     * @param length  number of bytes to search
+     * @param b       to search for
+     * @return the offset of the first occurrence from {@code address}, or -1 if not found
+     */
+    int indexOf(long address, int length, byte b);
+
+    /**
+     * Searches a region for a byte, eight bytes at a time.
+     * <p>If {@code object} is {@code null}, {@code offset} is treated as an address.
+     *
+     * @return the offset of the first occurrence from {@code offset}, or -1 if not found
+     */
+    int indexOf(Object object, long offset, int length, byte b);
+
     void writeOrderedLong(long address, long i);
 
     void writeOrderedLong(Object object, long offset, long i);
@@ -168,6 +380,90 @@ public interface Memory {
 
     int getAndSetInt(Object object, long offset, int value) throws MisAlignedAssertionError;
 
+    /**
+     * Atomically sets the int at an address to its current value OR {@code mask}.
+     *
+     * @return the previous value
+     */
+    int getAndBitwiseOrInt(long address, int mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the int at an offset to its current value OR {@code mask}.
+     *
+     * @return the previous value
+     */
+    int getAndBitwiseOrInt(Object object, long offset, int mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the int at an address to its current value AND {@code mask}.
+     *
+     * @return the previous value
+     */
+    int getAndBitwiseAndInt(long address, int mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the int at an offset to its current value AND {@code mask}.
+     *
+     * @return the previous value
+     */
+    int getAndBitwiseAndInt(Object object, long offset, int mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the int at an address to its current value XOR {@code mask}.
+     *
+     * @return the previous value
+     */
+    int getAndBitwiseXorInt(long address, int mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the int at an offset to its current value XOR {@code mask}.
+     *
+     * @return the previous value
+     */
+    int getAndBitwiseXorInt(Object object, long offset, int mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the long at an address to its current value OR {@code mask}.
+     *
+     * @return the previous value
+     */
+    long getAndBitwiseOrLong(long address, long mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the long at an offset to its current value OR {@code mask}.
+     *
+     * @return the previous value
+     */
+    long getAndBitwiseOrLong(Object object, long offset, long mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the long at an address to its current value AND {@code mask}.
+     *
+     * @return the previous value
+     */
+    long getAndBitwiseAndLong(long address, long mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the long at an offset to its current value AND {@code mask}.
+     *
+     * @return the previous value
+     */
+    long getAndBitwiseAndLong(Object object, long offset, long mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the long at an address to its current value XOR {@code mask}.
+     *
+     * @return the previous value
+     */
+    long getAndBitwiseXorLong(long address, long mask) throws MisAlignedAssertionError;
+
+    /**
+     * Atomically sets the long at an offset to its current value XOR {@code mask}.
+     *
+     * @return the previous value
+     */
+    long getAndBitwiseXorLong(Object object, long offset, long mask) throws MisAlignedAssertionError;
+
     int pageSize();
 
     byte readVolatileByte(long address);
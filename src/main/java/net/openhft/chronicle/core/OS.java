@@ -19,6 +19,7 @@
 package net.openhft.chronicle.core;
 
 import net.openhft.chronicle.core.util.ThrowingFunction;
+import net.openhft.posix.PosixAPI;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import sun.nio.ch.FileChannelImpl;
@@ -438,6 +439,59 @@ public final class OS {
         return address;
     }
 
+    /**
+     * Map a region of a file into memory, applying access hints to the new mapping.
+     * <p>
+     * Hints are advisory, if one can't be applied it is logged at debug level and the mapping is still returned.
+     *
+     * @param fileChannel to map
+     * @param mode        of access
+     * @param start       offset within a file
+     * @param size        of region to map.
+     * @param hints       to apply to the mapping
+     * @return the address of the memory mapping.
+     * @throws IOException              if the mapping fails
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    public static long map(@NotNull FileChannel fileChannel, FileChannel.MapMode mode, long start, long size, @NotNull MapHint... hints)
+            throws IOException, IllegalArgumentException {
+        final long address = map(fileChannel, mode, start, size);
+        applyHints(fileChannel, start, address, pageAlign(size), hints);
+        return address;
+    }
+
+    private static void applyHints(@NotNull FileChannel fileChannel, long start, long address, long size, @NotNull MapHint... hints) throws IOException {
+        boolean populate = false;
+        for (MapHint hint : hints) {
+            if (hint.flag == null)
+                populate = true;
+            else if (isLinux())
+                madvise(address, size, hint);
+        }
+        if (populate) {
+            // touching a page past the end of the file would raise SIGBUS
+            final long length = Math.min(size, fileChannel.size() - start);
+            populate(address, length);
+        }
+    }
+
+    private static void madvise(long address, long size, @NotNull MapHint hint) {
+        try {
+            final int ret = PosixAPI.posix().madvise(address, size, hint.flag);
+            if (ret != 0)
+                Jvm.debug().on(OS.class, "madvise " + hint + " returned " + ret);
+        } catch (Error | RuntimeException e) {
+            Jvm.debug().on(OS.class, "Unable to apply " + hint + " " + e);
+        }
+    }
+
+    private static void populate(long address, long length) {
+        final Memory memory = memory();
+        final int pageSize = pageSize();
+        for (long i = 0; i < length; i += pageSize)
+            memory.readVolatileByte(address + i);
+    }
+
     private static long invokeFileChannelMap0(@NotNull MethodHandle map0, @NotNull FileChannel fileChannel, int imode, long start, long size,
                                               @NotNull ThrowingFunction<OutOfMemoryError, Long, IOException> errorHandler) throws IOException {
         try {
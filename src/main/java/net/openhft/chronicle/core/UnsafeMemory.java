@@ -56,6 +56,11 @@ public class UnsafeMemory implements Memory {
     // Create a local copy of type long (instead of int) to optimize performance
     private static final long ARRAY_BYTE_BASE_OFFSET = Unsafe.ARRAY_BYTE_BASE_OFFSET;
     private static final long ARRAY_CHAR_BASE_OFFSET = Unsafe.ARRAY_CHAR_BASE_OFFSET;
+    private static final long ARRAY_SHORT_BASE_OFFSET = Unsafe.ARRAY_SHORT_BASE_OFFSET;
+    private static final long ARRAY_INT_BASE_OFFSET = Unsafe.ARRAY_INT_BASE_OFFSET;
+    private static final long ARRAY_FLOAT_BASE_OFFSET = Unsafe.ARRAY_FLOAT_BASE_OFFSET;
+    private static final long ARRAY_LONG_BASE_OFFSET = Unsafe.ARRAY_LONG_BASE_OFFSET;
+    private static final long ARRAY_DOUBLE_BASE_OFFSET = Unsafe.ARRAY_DOUBLE_BASE_OFFSET;
 
     private static final String CANNOT_CHANGE_AT = "Cannot change at ";
     private static final String WAS = " was ";
@@ -687,6 +692,188 @@ public class UnsafeMemory implements Memory {
         }
     }
 
+    @Override
+    public void copy(byte[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copyMemory0(src, ARRAY_BYTE_BASE_OFFSET + srcIndex, null, address, count);
+    }
+
+    @Override
+    public void copy(long address, byte[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copyMemory0(null, address, dest, ARRAY_BYTE_BASE_OFFSET + destIndex, count);
+    }
+
+    @Override
+    public void copy(short[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copyMemory0(src, ARRAY_SHORT_BASE_OFFSET + ((long) srcIndex << 1), null, address, (long) count << 1);
+    }
+
+    @Override
+    public void copy(long address, short[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copyMemory0(null, address, dest, ARRAY_SHORT_BASE_OFFSET + ((long) destIndex << 1), (long) count << 1);
+    }
+
+    @Override
+    public void copySwapped(short[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copySwapped2(src, ARRAY_SHORT_BASE_OFFSET + ((long) srcIndex << 1), null, address, count);
+    }
+
+    @Override
+    public void copySwapped(long address, short[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copySwapped2(null, address, dest, ARRAY_SHORT_BASE_OFFSET + ((long) destIndex << 1), count);
+    }
+
+    @Override
+    public void copy(char[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copyMemory0(src, ARRAY_CHAR_BASE_OFFSET + ((long) srcIndex << 1), null, address, (long) count << 1);
+    }
+
+    @Override
+    public void copy(long address, char[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copyMemory0(null, address, dest, ARRAY_CHAR_BASE_OFFSET + ((long) destIndex << 1), (long) count << 1);
+    }
+
+    @Override
+    public void copySwapped(char[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copySwapped2(src, ARRAY_CHAR_BASE_OFFSET + ((long) srcIndex << 1), null, address, count);
+    }
+
+    @Override
+    public void copySwapped(long address, char[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copySwapped2(null, address, dest, ARRAY_CHAR_BASE_OFFSET + ((long) destIndex << 1), count);
+    }
+
+    @Override
+    public void copy(int[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copyMemory0(src, ARRAY_INT_BASE_OFFSET + ((long) srcIndex << 2), null, address, (long) count << 2);
+    }
+
+    @Override
+    public void copy(long address, int[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copyMemory0(null, address, dest, ARRAY_INT_BASE_OFFSET + ((long) destIndex << 2), (long) count << 2);
+    }
+
+    @Override
+    public void copySwapped(int[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copySwapped4(src, ARRAY_INT_BASE_OFFSET + ((long) srcIndex << 2), null, address, count);
+    }
+
+    @Override
+    public void copySwapped(long address, int[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copySwapped4(null, address, dest, ARRAY_INT_BASE_OFFSET + ((long) destIndex << 2), count);
+    }
+
+    @Override
+    public void copy(float[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copyMemory0(src, ARRAY_FLOAT_BASE_OFFSET + ((long) srcIndex << 2), null, address, (long) count << 2);
+    }
+
+    @Override
+    public void copy(long address, float[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copyMemory0(null, address, dest, ARRAY_FLOAT_BASE_OFFSET + ((long) destIndex << 2), (long) count << 2);
+    }
+
+    @Override
+    public void copySwapped(float[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copySwapped4(src, ARRAY_FLOAT_BASE_OFFSET + ((long) srcIndex << 2), null, address, count);
+    }
+
+    @Override
+    public void copySwapped(long address, float[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copySwapped4(null, address, dest, ARRAY_FLOAT_BASE_OFFSET + ((long) destIndex << 2), count);
+    }
+
+    @Override
+    public void copy(long[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copyMemory0(src, ARRAY_LONG_BASE_OFFSET + ((long) srcIndex << 3), null, address, (long) count << 3);
+    }
+
+    @Override
+    public void copy(long address, long[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copyMemory0(null, address, dest, ARRAY_LONG_BASE_OFFSET + ((long) destIndex << 3), (long) count << 3);
+    }
+
+    @Override
+    public void copySwapped(long[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copySwapped8(src, ARRAY_LONG_BASE_OFFSET + ((long) srcIndex << 3), null, address, count);
+    }
+
+    @Override
+    public void copySwapped(long address, long[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copySwapped8(null, address, dest, ARRAY_LONG_BASE_OFFSET + ((long) destIndex << 3), count);
+    }
+
+    @Override
+    public void copy(double[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copyMemory0(src, ARRAY_DOUBLE_BASE_OFFSET + ((long) srcIndex << 3), null, address, (long) count << 3);
+    }
+
+    @Override
+    public void copy(long address, double[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copyMemory0(null, address, dest, ARRAY_DOUBLE_BASE_OFFSET + ((long) destIndex << 3), (long) count << 3);
+    }
+
+    @Override
+    public void copySwapped(double[] src, int srcIndex, long address, int count) {
+        checkBounds(src.length, srcIndex, count);
+        copySwapped8(src, ARRAY_DOUBLE_BASE_OFFSET + ((long) srcIndex << 3), null, address, count);
+    }
+
+    @Override
+    public void copySwapped(long address, double[] dest, int destIndex, int count) {
+        checkBounds(dest.length, destIndex, count);
+        copySwapped8(null, address, dest, ARRAY_DOUBLE_BASE_OFFSET + ((long) destIndex << 3), count);
+    }
+
+    private static void checkBounds(int arrayLength, int index, int count) {
+        if (index < 0 || count < 0 || index > arrayLength - count)
+            throw new ArrayIndexOutOfBoundsException("index: " + index + ", count: " + count + ", length: " + arrayLength);
+    }
+
+    private static void copySwapped2(@Nullable Object src, long srcOffset, @Nullable Object dest, long destOffset, int count) {
+        for (int i = 0; i < count; i++) {
+            final long offset = (long) i << 1;
+            UNSAFE.putShort(dest, destOffset + offset, Short.reverseBytes(UNSAFE.getShort(src, srcOffset + offset)));
+        }
+    }
+
+    private static void copySwapped4(@Nullable Object src, long srcOffset, @Nullable Object dest, long destOffset, int count) {
+        for (int i = 0; i < count; i++) {
+            final long offset = (long) i << 2;
+            UNSAFE.putInt(dest, destOffset + offset, Integer.reverseBytes(UNSAFE.getInt(src, srcOffset + offset)));
+        }
+    }
+
+    private static void copySwapped8(@Nullable Object src, long srcOffset, @Nullable Object dest, long destOffset, int count) {
+        for (int i = 0; i < count; i++) {
+            final long offset = (long) i << 3;
+            UNSAFE.putLong(dest, destOffset + offset, Long.reverseBytes(UNSAFE.getLong(src, srcOffset + offset)));
+        }
+    }
+
     void copyMemory0(@Nullable Object src, long srcOffset, @Nullable Object dest, long destOffset, long length) {
         assert SKIP_ASSERTIONS || assertIfEnabled(Longs.nonNegative(), srcOffset);
         assert SKIP_ASSERTIONS || assertIfEnabled(Longs.nonNegative(), destOffset);
@@ -954,6 +1141,101 @@ public class UnsafeMemory implements Memory {
         return true;
     }
 
+    @Override
+    public int compare(long addressA, long addressB, int length) {
+        assert SKIP_ASSERTIONS || addressA != 0;
+        assert SKIP_ASSERTIONS || addressB != 0;
+        return compare0(null, addressA, null, addressB, length);
+    }
+
+    @Override
+    public int compare(Object objectA, long offsetA, Object objectB, long offsetB, int length) {
+        assert SKIP_ASSERTIONS || assertIfEnabled(Longs.nonNegative(), offsetA);
+        assert SKIP_ASSERTIONS || assertIfEnabled(Longs.nonNegative(), offsetB);
+        return compare0(objectA, offsetA, objectB, offsetB, length);
+    }
+
+    private static int compare0(Object objectA, long offsetA, Object objectB, long offsetB, int length) {
+        final int i = mismatch0(objectA, offsetA, objectB, offsetB, length);
+        if (i < 0)
+            return 0;
+        return (UNSAFE.getByte(objectA, offsetA + i) & 0xFF) - (UNSAFE.getByte(objectB, offsetB + i) & 0xFF);
+    }
+
+    @Override
+    public int mismatch(long addressA, long addressB, int length) {
+        assert SKIP_ASSERTIONS || addressA != 0;
+        assert SKIP_ASSERTIONS || addressB != 0;
+        return mismatch0(null, addressA, null, addressB, length);
+    }
+
+    @Override
+    public int mismatch(Object objectA, long offsetA, Object objectB, long offsetB, int length) {
+        assert SKIP_ASSERTIONS || assertIfEnabled(Longs.nonNegative(), offsetA);
+        assert SKIP_ASSERTIONS || assertIfEnabled(Longs.nonNegative(), offsetB);
+        return mismatch0(objectA, offsetA, objectB, offsetB, length);
+    }
+
+    private static int mismatch0(Object objectA, long offsetA, Object objectB, long offsetB, int length) {
+        assert SKIP_ASSERTIONS || assertIfEnabled(Ints.nonNegative(), length);
+        int i = 0;
+        for (; i < length - 7; i += 8) {
+            final long diff = UNSAFE.getLong(objectA, offsetA + i) ^ UNSAFE.getLong(objectB, offsetB + i);
+            if (diff != 0)
+                return i + firstByteSet(diff);
+        }
+        if (i < length - 3) {
+            final int diff = UNSAFE.getInt(objectA, offsetA + i) ^ UNSAFE.getInt(objectB, offsetB + i);
+            if (diff != 0)
+                return i + (IS_LITTLE_ENDIAN
+                        ? Integer.numberOfTrailingZeros(diff) >>> 3
+                        : Integer.numberOfLeadingZeros(diff) >>> 3);
+            i += 4;
+        }
+        for (; i < length; i++)
+            if (UNSAFE.getByte(objectA, offsetA + i) != UNSAFE.getByte(objectB, offsetB + i))
+                return i;
+        return -1;
+    }
+
+    @Override
+    public int indexOf(long address, int length, byte b) {
+        assert SKIP_ASSERTIONS || address != 0;
+        return indexOf0(null, address, length, b);
+    }
+
+    @Override
+    public int indexOf(Object object, long offset, int length, byte b) {
+        assert SKIP_ASSERTIONS || assertIfEnabled(Longs.nonNegative(), offset);
+        return indexOf0(object, offset, length, b);
+    }
+
+    private static int indexOf0(Object object, long offset, int length, byte b) {
+        assert SKIP_ASSERTIONS || assertIfEnabled(Ints.nonNegative(), length);
+        final long pattern = (b & 0xFFL) * 0x0101010101010101L;
+        int i = 0;
+        for (; i < length - 7; i += 8) {
+            long word = UNSAFE.getLong(object, offset + i);
+            if (!IS_LITTLE_ENDIAN)
+                word = Long.reverseBytes(word);
+            // the lowest high bit set marks the first byte equal to b, higher ones may be false positives
+            final long x = word ^ pattern;
+            final long found = (x - 0x0101010101010101L) & ~x & 0x8080808080808080L;
+            if (found != 0)
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+        }
+        for (; i < length; i++)
+            if (UNSAFE.getByte(object, offset + i) == b)
+                return i;
+        return -1;
+    }
+
+    private static int firstByteSet(long diff) {
+        return IS_LITTLE_ENDIAN
+                ? Long.numberOfTrailingZeros(diff) >>> 3
+                : Long.numberOfLeadingZeros(diff) >>> 3;
+    }
+
     @Override
     public void writeOrderedLong(long address, long i) {
         assert SKIP_ASSERTIONS || address != 0;
@@ -1029,6 +1311,138 @@ public class UnsafeMemory implements Memory {
         return UNSAFE.getAndSetInt(object, offset, value);
     }
 
+    @Override
+    public int getAndBitwiseOrInt(long address, int mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final int value = UNSAFE.getIntVolatile(null, address);
+            // the bits are already set, avoid taking the cache line exclusively
+            if ((value | mask) == value)
+                return value;
+            if (compareAndSwapInt(address, value, value | mask))
+                return value;
+        }
+    }
+
+    @Override
+    public int getAndBitwiseOrInt(Object object, long offset, int mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final int value = UNSAFE.getIntVolatile(object, offset);
+            // the bits are already set, avoid taking the cache line exclusively
+            if ((value | mask) == value)
+                return value;
+            if (compareAndSwapInt(object, offset, value, value | mask))
+                return value;
+        }
+    }
+
+    @Override
+    public int getAndBitwiseAndInt(long address, int mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final int value = UNSAFE.getIntVolatile(null, address);
+            // the bits are already clear, avoid taking the cache line exclusively
+            if ((value & mask) == value)
+                return value;
+            if (compareAndSwapInt(address, value, value & mask))
+                return value;
+        }
+    }
+
+    @Override
+    public int getAndBitwiseAndInt(Object object, long offset, int mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final int value = UNSAFE.getIntVolatile(object, offset);
+            // the bits are already clear, avoid taking the cache line exclusively
+            if ((value & mask) == value)
+                return value;
+            if (compareAndSwapInt(object, offset, value, value & mask))
+                return value;
+        }
+    }
+
+    @Override
+    public int getAndBitwiseXorInt(long address, int mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final int value = UNSAFE.getIntVolatile(null, address);
+            if (compareAndSwapInt(address, value, value ^ mask))
+                return value;
+        }
+    }
+
+    @Override
+    public int getAndBitwiseXorInt(Object object, long offset, int mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final int value = UNSAFE.getIntVolatile(object, offset);
+            if (compareAndSwapInt(object, offset, value, value ^ mask))
+                return value;
+        }
+    }
+
+    @Override
+    public long getAndBitwiseOrLong(long address, long mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final long value = UNSAFE.getLongVolatile(null, address);
+            // the bits are already set, avoid taking the cache line exclusively
+            if ((value | mask) == value)
+                return value;
+            if (compareAndSwapLong(address, value, value | mask))
+                return value;
+        }
+    }
+
+    @Override
+    public long getAndBitwiseOrLong(Object object, long offset, long mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final long value = UNSAFE.getLongVolatile(object, offset);
+            // the bits are already set, avoid taking the cache line exclusively
+            if ((value | mask) == value)
+                return value;
+            if (compareAndSwapLong(object, offset, value, value | mask))
+                return value;
+        }
+    }
+
+    @Override
+    public long getAndBitwiseAndLong(long address, long mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final long value = UNSAFE.getLongVolatile(null, address);
+            // the bits are already clear, avoid taking the cache line exclusively
+            if ((value & mask) == value)
+                return value;
+            if (compareAndSwapLong(address, value, value & mask))
+                return value;
+        }
+    }
+
+    @Override
+    public long getAndBitwiseAndLong(Object object, long offset, long mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final long value = UNSAFE.getLongVolatile(object, offset);
+            // the bits are already clear, avoid taking the cache line exclusively
+            if ((value & mask) == value)
+                return value;
+            if (compareAndSwapLong(object, offset, value, value & mask))
+                return value;
+        }
+    }
+
+    @Override
+    public long getAndBitwiseXorLong(long address, long mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final long value = UNSAFE.getLongVolatile(null, address);
+            if (compareAndSwapLong(address, value, value ^ mask))
+                return value;
+        }
+    }
+
+    @Override
+    public long getAndBitwiseXorLong(Object object, long offset, long mask) throws MisAlignedAssertionError {
+        for (; ; ) {
+            final long value = UNSAFE.getLongVolatile(object, offset);
+            if (compareAndSwapLong(object, offset, value, value ^ mask))
+                return value;
+        }
+    }
+
     @Override
     public int pageSize() {
         return UNSAFE.pageSize();
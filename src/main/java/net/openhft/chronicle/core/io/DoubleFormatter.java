@@ -0,0 +1,270 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.io;
+
+import net.openhft.chronicle.core.Maths;
+
+import java.math.BigInteger;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/**
+ * Finds the shortest decimal which parses back to the same double, using the Schubfach algorithm, and writes it to native memory.
+ * <p>
+ * See Raffaello Giulietti, "The Schubfach way to render doubles", 2020. This follows the implementation used by Double.toString in Java 19+.
+ */
+final class DoubleFormatter {
+    /**
+     * d.dddE[-]n as Double.toString uses outside 1e-3 to 1e7
+     */
+    static final int SCIENTIFIC = -1;
+    /**
+     * without an exponent, and at least one digit after the decimal point
+     */
+    static final int PLAIN = -2;
+    /**
+     * without an exponent or decimal point, only for whole numbers
+     */
+    static final int WHOLE = -3;
+
+    private static final int Q_MIN = -1074;
+    private static final int P = 53;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final int C_TINY = 3;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long MASK_63 = (1L << 63) - 1;
+    // the high and low 63 bits of g, where 10^-k = beta 2^r with 2^125 <= beta < 2^126, and g = floor(beta) + 1
+    private static final long[] G1 = new long[K_MAX - K_MIN + 1];
+    private static final long[] G0 = new long[K_MAX - K_MIN + 1];
+
+    static {
+        final BigInteger mask63 = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            final BigInteger beta;
+            if (k <= 0) {
+                final BigInteger pow10 = BigInteger.TEN.pow(-k);
+                final int r = pow10.bitLength() - 126;
+                beta = r >= 0 ? pow10.shiftRight(r) : pow10.shiftLeft(-r);
+            } else {
+                final BigInteger pow10 = BigInteger.TEN.pow(k);
+                beta = BigInteger.ONE.shiftLeft(pow10.bitLength() + 125).divide(pow10);
+            }
+            final BigInteger g = beta.add(BigInteger.ONE);
+            G1[k - K_MIN] = g.shiftRight(63).longValue();
+            G0[k - K_MIN] = g.and(mask63).longValue();
+        }
+    }
+
+    // Suppresses default constructor, ensuring non-instantiability.
+    private DoubleFormatter() {
+    }
+
+    /**
+     * Writes the shortest decimal which parses back to {@code v}.
+     *
+     * @param address to write to
+     * @param v       a positive, finite, non-zero value
+     * @param mode    {@link #SCIENTIFIC}, {@link #PLAIN}, {@link #WHOLE}, or else the number of decimal places to round to
+     * @return the address after the last byte written
+     */
+    static long toDecimal(long address, double v, int mode) {
+        final long bits = Double.doubleToRawLongBits(v);
+        final long t = bits & (C_MIN - 1);
+        final int bq = (int) (bits >>> (P - 1)) & 0x7FF;
+        if (bq != 0) {
+            // normal value, mq = -q
+            final int mq = -Q_MIN + 1 - bq;
+            final long c = C_MIN | t;
+            // whole numbers less than 2^53
+            if (0 < mq & mq < P) {
+                final long f = c >> mq;
+                if (f << mq == c)
+                    return write(address, f, 0, mode);
+            }
+            return toDecimal(address, -mq, c, 0, mode);
+        }
+        // subnormal value
+        return t < C_TINY
+                ? toDecimal(address, Q_MIN, 10 * t, -1, mode)
+                : toDecimal(address, Q_MIN, t, 0, mode);
+    }
+
+    private static long toDecimal(long address, int q, long c, int dk, int mode) {
+        final int out = (int) c & 0x1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // the gap below a power of two is half the gap above
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 2;
+        final long g1 = G1[k - K_MIN];
+        final long g0 = G0[k - K_MIN];
+        final long vb = rop(g1, g0, cb << h);
+        final long vbl = rop(g1, g0, cbl << h);
+        final long vbr = rop(g1, g0, cbr << h);
+
+        final long s = vb >> 2;
+        if (s >= 100) {
+            // try one digit less
+            final long sp10 = 10 * Maths.unsignedMultiplyHigh(s, 115_292_150_460_684_698L << 4);
+            final long tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return write(address, upin ? sp10 : tp10, k, mode);
+        }
+        final long t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return write(address, uin ? s : t, k + dk, mode);
+        // both are in range, pick the closest, or the even one if tied
+        final long cmp = vb - (s + t << 1);
+        return write(address, cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, mode);
+    }
+
+    // rounds the product of g and cp to odd
+    private static long rop(long g1, long g0, long cp) {
+        final long x1 = Maths.unsignedMultiplyHigh(g0, cp);
+        final long y0 = g1 * cp;
+        final long y1 = Maths.unsignedMultiplyHigh(g1, cp);
+        final long z = (y0 >>> 1) + x1;
+        final long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    // floor(q log10(2))
+    private static int flog10pow2(int q) {
+        return (int) (q * 661_971_961_083L >> 41);
+    }
+
+    // floor(q log10(2) + log10(3/4))
+    private static int flog10threeQuartersPow2(int q) {
+        return (int) (q * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    // floor(e log2(10))
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    // writes f * 10^e
+    private static long write(long address, long f, int e, int mode) {
+        if (mode >= 0)
+            return writeFixed(address, f, e, mode);
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        final int n = Maths.digits(f);
+        final int exp10 = e + n - 1;
+        if (mode == SCIENTIFIC) {
+            if (n == 1) {
+                MEMORY.writeByte(address++, (byte) ('0' + f));
+                MEMORY.writeByte(address++, (byte) '.');
+                MEMORY.writeByte(address++, (byte) '0');
+            } else {
+                address = writeDigits(address, f, n, 1);
+            }
+            MEMORY.writeByte(address++, (byte) 'E');
+            return UnsafeText.appendFixed(address, exp10);
+        }
+        if (exp10 < 0) {
+            address = writeZeros(address, 1);
+            MEMORY.writeByte(address++, (byte) '.');
+            address = writeZeros(address, -exp10 - 1);
+            return writeDigits(address, f, n, n);
+        }
+        final int intDigits = exp10 + 1;
+        if (n > intDigits)
+            return writeDigits(address, f, n, intDigits);
+        address = writeDigits(address, f, n, n);
+        address = writeZeros(address, intDigits - n);
+        if (mode == WHOLE)
+            return address;
+        MEMORY.writeByte(address++, (byte) '.');
+        return writeZeros(address, 1);
+    }
+
+    // writes f * 10^e rounded half up to exactly decimals places
+    private static long writeFixed(long address, long f, int e, int decimals) {
+        if (e < -decimals) {
+            final int drop = -decimals - e;
+            if (drop >= 18) {
+                // f has at most 17 digits
+                f = 0;
+            } else {
+                final long pow = Maths.tens(drop);
+                final long r = f / pow;
+                f = (f - r * pow) * 2 >= pow ? r + 1 : r;
+            }
+            e = -decimals;
+        }
+        // f followed by zeros is the value in units of 10^-decimals
+        final int n = f == 0 ? 1 : Maths.digits(f);
+        final int zeros = e + decimals;
+        final int intDigits = n + zeros - decimals;
+        if (intDigits <= 0) {
+            address = writeZeros(address, 1);
+            if (decimals == 0)
+                return address;
+            MEMORY.writeByte(address++, (byte) '.');
+            address = writeZeros(address, -intDigits);
+            address = writeDigits(address, f, n, n);
+            return writeZeros(address, zeros);
+        }
+        if (intDigits < n) {
+            address = writeDigits(address, f, n, intDigits);
+            return writeZeros(address, zeros);
+        }
+        address = writeDigits(address, f, n, n);
+        address = writeZeros(address, intDigits - n);
+        if (decimals == 0)
+            return address;
+        MEMORY.writeByte(address++, (byte) '.');
+        return writeZeros(address, decimals);
+    }
+
+    // writes the n digits of f with a decimal point after the first dot digits, if dot < n
+    private static long writeDigits(long address, long f, int n, int dot) {
+        final long end = address + n + (dot < n ? 1 : 0);
+        long pos = end;
+        for (int i = n; i > 0; i--) {
+            if (i == dot && dot < n)
+                MEMORY.writeByte(--pos, (byte) '.');
+            MEMORY.writeByte(--pos, (byte) ('0' + f % 10));
+            f /= 10;
+        }
+        return end;
+    }
+
+    private static long writeZeros(long address, int count) {
+        for (int i = 0; i < count; i++)
+            MEMORY.writeByte(address++, (byte) '0');
+        return address;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.io;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.annotation.Positive;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/**
+ * A native memory allocator which carves power of two size classes out of slabs obtained from
+ * {@link net.openhft.chronicle.core.Memory#allocate(long)}, so short-lived buffers are recycled without calling malloc/free.
+ * <p>
+ * Each thread has its own free lists and current slab, so allocation and release are not contended.
+ * A block released on another thread is recycled by that thread.
+ * Blocks larger than {@link #MAX_BLOCK_SIZE} are allocated directly.
+ * <p>
+ * All the memory reserved is included in {@link net.openhft.chronicle.core.Memory#nativeMemoryUsed()}
+ * and is released in bulk when this arena is closed.
+ */
+public class NativeArena extends AbstractCloseable {
+    public static final int MIN_BLOCK_SIZE = 16;
+    public static final int MAX_BLOCK_SIZE = 64 << 10;
+    static final long DEFAULT_SLAB_SIZE = Jvm.getLong("nativeArena.slabSize", 1L << 20);
+    private static final int SIZE_CLASSES = sizeClass(MAX_BLOCK_SIZE) + 1;
+
+    private final long slabSize;
+    private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(ThreadState::new);
+    private final AtomicLong reserved = new AtomicLong();
+    private final Map<Long, Long> largeBlocks = new HashMap<>();
+    private long[] slabs = new long[16];
+    private int slabCount = 0;
+
+    public NativeArena() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * @param slabSize the size of each slab reserved, rounded up to at least {@link #MAX_BLOCK_SIZE}
+     */
+    public NativeArena(@Positive long slabSize) {
+        this.slabSize = Math.max(slabSize, MAX_BLOCK_SIZE);
+        singleThreadedCheckDisabled(true);
+    }
+
+    static int sizeClass(long size) {
+        if (size <= MIN_BLOCK_SIZE)
+            return 0;
+        return 64 - Long.numberOfLeadingZeros(size - 1) - 4;
+    }
+
+    static int blockSize(int sizeClass) {
+        return MIN_BLOCK_SIZE << sizeClass;
+    }
+
+    /**
+     * Allocates a block of at least {@code size} bytes.
+     *
+     * @param size to allocate
+     * @return the address of the block
+     * @throws ClosedIllegalStateException if this arena has been closed
+     * @throws OutOfMemoryError            if a new slab could not be allocated
+     */
+    public long allocate(@Positive long size) throws IllegalStateException {
+        if (size <= 0)
+            throw new IllegalArgumentException("Invalid size: " + size);
+        throwExceptionIfClosed();
+        if (size > MAX_BLOCK_SIZE)
+            return allocateLarge(size);
+
+        final int sizeClass = sizeClass(size);
+        final ThreadState state = threadState.get();
+        final long head = state.freeLists[sizeClass];
+        if (head != 0) {
+            state.freeLists[sizeClass] = MEMORY.readLong(head);
+            return head;
+        }
+        final int blockSize = blockSize(sizeClass);
+        if (state.position + blockSize > state.limit) {
+            final long slab = allocateSlab();
+            state.position = slab;
+            state.limit = slab + slabSize;
+        }
+        final long address = state.position;
+        state.position += blockSize;
+        return address;
+    }
+
+    /**
+     * Returns a block to the free list of the current thread.
+     *
+     * @param address of the block
+     * @param size    the size passed to {@link #allocate(long)}
+     */
+    public void free(long address, long size) {
+        if (address == 0 || isClosing())
+            return;
+        if (size > MAX_BLOCK_SIZE) {
+            freeLarge(address, size);
+            return;
+        }
+        final int sizeClass = sizeClass(size);
+        final ThreadState state = threadState.get();
+        MEMORY.writeLong(address, state.freeLists[sizeClass]);
+        state.freeLists[sizeClass] = address;
+    }
+
+    /**
+     * @return the number of bytes of native memory this arena currently holds
+     */
+    public long reservedMemory() {
+        return reserved.get();
+    }
+
+    public long slabSize() {
+        return slabSize;
+    }
+
+    private synchronized long allocateSlab() {
+        final long slab = MEMORY.allocate(slabSize);
+        if (slabCount == slabs.length)
+            slabs = Arrays.copyOf(slabs, slabCount * 2);
+        slabs[slabCount++] = slab;
+        reserved.addAndGet(slabSize);
+        return slab;
+    }
+
+    private synchronized long allocateLarge(long size) {
+        final long address = MEMORY.allocate(size);
+        largeBlocks.put(address, size);
+        reserved.addAndGet(size);
+        return address;
+    }
+
+    private synchronized void freeLarge(long address, long size) {
+        final Long actual = largeBlocks.remove(address);
+        if (actual == null)
+            throw new IllegalArgumentException("Address " + Long.toHexString(address) + " was not allocated by this arena");
+        if (actual != size)
+            Jvm.warn().on(getClass(), "Freeing block of " + actual + " bytes with size " + size);
+        MEMORY.freeMemory(address, actual);
+        reserved.addAndGet(-actual);
+    }
+
+    @Override
+    protected synchronized void performClose() {
+        for (int i = 0; i < slabCount; i++)
+            MEMORY.freeMemory(slabs[i], slabSize);
+        reserved.addAndGet(-slabSize * slabCount);
+        slabCount = 0;
+        for (Map.Entry<Long, Long> entry : largeBlocks.entrySet()) {
+            MEMORY.freeMemory(entry.getKey(), entry.getValue());
+            reserved.addAndGet(-entry.getValue());
+        }
+        largeBlocks.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "NativeArena{" +
+                "slabSize=" + slabSize +
+                ", reserved=" + Maths.divideRoundUp(reserved.get(), 1024) + " KiB" +
+                '}';
+    }
+
+    static final class ThreadState {
+        // head of an intrusive list per size class, the next address is stored in the first 8 bytes of each free block
+        final long[] freeLists = new long[SIZE_CLASSES];
+        long position;
+        long limit;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.io;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/**
+ * Fast, unsafe Base64 encoding and decoding between native memory ranges, as described in RFC 4648.
+ * The output matches {@code java.util.Base64.getEncoder()} and {@code getUrlEncoder()}, including padding.
+ * NOTE: The caller has to ensure there is always plenty of memory to perform this operation.
+ */
+public final class UnsafeBase64 {
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    private static final byte[] STANDARD = alphabet('+', '/');
+    private static final byte[] URL_SAFE = alphabet('-', '_');
+    // the value of each character in either alphabet, or -1
+    private static final byte[] DECODE = new byte[256];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < 64; i++) {
+            DECODE[STANDARD[i]] = (byte) i;
+            DECODE[URL_SAFE[i]] = (byte) i;
+        }
+    }
+
+    // Suppresses default constructor, ensuring non-instantiability.
+    private UnsafeBase64() {
+    }
+
+    private static byte[] alphabet(char c62, char c63) {
+        final byte[] alphabet = new byte[64];
+        for (int i = 0; i < 26; i++) {
+            alphabet[i] = (byte) ('A' + i);
+            alphabet[i + 26] = (byte) ('a' + i);
+        }
+        for (int i = 0; i < 10; i++)
+            alphabet[i + 52] = (byte) ('0' + i);
+        alphabet[62] = (byte) c62;
+        alphabet[63] = (byte) c63;
+        return alphabet;
+    }
+
+    /**
+     * @param length the number of bytes to encode
+     * @return the number of characters they encode to, with padding
+     */
+    public static int encodedLength(int length) {
+        return (length + 2) / 3 * 4;
+    }
+
+    /**
+     * Encodes bytes with the standard alphabet.
+     *
+     * @param address to start writing
+     * @param from    the address of the bytes to encode
+     * @param length  the number of bytes to encode
+     * @return endOfAddress, address + encodedLength(length)
+     */
+    public static long appendBase64(long address, long from, int length) {
+        return append(address, from, length, STANDARD);
+    }
+
+    /**
+     * Encodes bytes with the URL and file name safe alphabet.
+     *
+     * @param address to start writing
+     * @param from    the address of the bytes to encode
+     * @param length  the number of bytes to encode
+     * @return endOfAddress, address + encodedLength(length)
+     */
+    public static long appendBase64Url(long address, long from, int length) {
+        return append(address, from, length, URL_SAFE);
+    }
+
+    private static long append(long address, long from, int length, byte[] alphabet) {
+        int i = 0;
+        // read a word when there is a byte to spare after the three used
+        for (; i <= length - 4; i += 3) {
+            int word = MEMORY.readInt(from + i);
+            if (LITTLE_ENDIAN)
+                word = Integer.reverseBytes(word);
+            address = write4(address, word >>> 8, alphabet);
+        }
+        for (; i <= length - 3; i += 3)
+            address = write4(address, (MEMORY.readByte(from + i) & 0xFF) << 16 | (MEMORY.readByte(from + i + 1) & 0xFF) << 8 | (MEMORY.readByte(from + i + 2) & 0xFF), alphabet);
+        final int remaining = length - i;
+        if (remaining > 0) {
+            final int bits = (MEMORY.readByte(from + i) & 0xFF) << 16 | (remaining == 2 ? (MEMORY.readByte(from + i + 1) & 0xFF) << 8 : 0);
+            MEMORY.writeByte(address, alphabet[bits >>> 18]);
+            MEMORY.writeByte(address + 1, alphabet[(bits >>> 12) & 63]);
+            MEMORY.writeByte(address + 2, remaining == 2 ? alphabet[(bits >>> 6) & 63] : (byte) '=');
+            MEMORY.writeByte(address + 3, (byte) '=');
+            address += 4;
+        }
+        return address;
+    }
+
+    // writes the four characters for 24 bits as one int
+    private static long write4(long address, int bits, byte[] alphabet) {
+        final int c0 = alphabet[bits >>> 18];
+        final int c1 = alphabet[(bits >>> 12) & 63];
+        final int c2 = alphabet[(bits >>> 6) & 63];
+        final int c3 = alphabet[bits & 63];
+        MEMORY.writeInt(address, LITTLE_ENDIAN
+                ? c0 | c1 << 8 | c2 << 16 | c3 << 24
+                : c0 << 24 | c1 << 16 | c2 << 8 | c3);
+        return address + 4;
+    }
+
+    /**
+     * Decodes Base64 in either the standard or URL safe alphabet. Padding is optional.
+     *
+     * @param address of the text
+     * @param length  the number of characters
+     * @param to      the address to write the bytes to
+     * @return the end of the bytes written
+     * @throws IllegalArgumentException if the length is not possible or there is a character which is not in the alphabet
+     */
+    public static long parseBase64(long address, int length, long to) throws IllegalArgumentException {
+        int len = length;
+        while (len > 0 && length - len < 2 && MEMORY.readByte(address + len - 1) == '=')
+            len--;
+        if ((len & 3) == 1 || (len != length && (length & 3) != 0))
+            throw new IllegalArgumentException("Invalid Base64 length: " + length);
+
+        int i = 0;
+        for (; i <= len - 4; i += 4) {
+            int word = MEMORY.readInt(address + i);
+            if (LITTLE_ENDIAN)
+                word = Integer.reverseBytes(word);
+            final int d0 = DECODE[word >>> 24];
+            final int d1 = DECODE[(word >>> 16) & 0xFF];
+            final int d2 = DECODE[(word >>> 8) & 0xFF];
+            final int d3 = DECODE[word & 0xFF];
+            if ((d0 | d1 | d2 | d3) < 0)
+                throw invalidCharacter(address, i, 4);
+            final int bits = d0 << 18 | d1 << 12 | d2 << 6 | d3;
+            MEMORY.writeByte(to, (byte) (bits >>> 16));
+            MEMORY.writeByte(to + 1, (byte) (bits >>> 8));
+            MEMORY.writeByte(to + 2, (byte) bits);
+            to += 3;
+        }
+        final int remaining = len - i;
+        if (remaining > 0) {
+            final int d0 = DECODE[MEMORY.readByte(address + i) & 0xFF];
+            final int d1 = DECODE[MEMORY.readByte(address + i + 1) & 0xFF];
+            final int d2 = remaining == 3 ? DECODE[MEMORY.readByte(address + i + 2) & 0xFF] : 0;
+            if ((d0 | d1 | d2) < 0)
+                throw invalidCharacter(address, i, remaining);
+            final int bits = d0 << 18 | d1 << 12 | d2 << 6;
+            MEMORY.writeByte(to++, (byte) (bits >>> 16));
+            if (remaining == 3)
+                MEMORY.writeByte(to++, (byte) (bits >>> 8));
+        }
+        return to;
+    }
+
+    private static IllegalArgumentException invalidCharacter(long address, int start, int count) {
+        for (int i = start; i < start + count; i++) {
+            final int ch = MEMORY.readByte(address + i) & 0xFF;
+            if (DECODE[ch] < 0)
+                return new IllegalArgumentException("Invalid Base64 character '" + (char) ch + "' at " + i);
+        }
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.io;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/**
+ * Fast, unsafe hexadecimal encoding and decoding between native memory ranges.
+ * NOTE: The caller has to ensure there is always plenty of memory to perform this operation.
+ */
+public final class UnsafeHex {
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    // the two lower case digits of each byte, in native order so they can be written as a short
+    private static final short[] ENCODE = new short[256];
+    // the value of each hex digit, or -1
+    private static final byte[] DECODE = new byte[256];
+
+    static {
+        final String digits = "0123456789abcdef";
+        for (int i = 0; i < 256; i++) {
+            final int hi = digits.charAt(i >> 4);
+            final int lo = digits.charAt(i & 0xF);
+            ENCODE[i] = (short) (LITTLE_ENDIAN ? hi | lo << 8 : hi << 8 | lo);
+        }
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            DECODE[digits.charAt(i)] = (byte) i;
+            DECODE[Character.toUpperCase(digits.charAt(i))] = (byte) i;
+        }
+    }
+
+    // Suppresses default constructor, ensuring non-instantiability.
+    private UnsafeHex() {
+    }
+
+    /**
+     * Writes each byte as two lower case hex digits.
+     *
+     * @param address to start writing
+     * @param from    the address of the bytes to encode
+     * @param length  the number of bytes to encode
+     * @return endOfAddress, address + 2 * length
+     */
+    public static long appendHex(long address, long from, int length) {
+        int i = 0;
+        // four bytes to eight digits at a time
+        for (; i <= length - 4; i += 4) {
+            final int word = MEMORY.readInt(from + i);
+            final int b0, b1, b2, b3;
+            if (LITTLE_ENDIAN) {
+                b0 = word & 0xFF;
+                b1 = (word >>> 8) & 0xFF;
+                b2 = (word >>> 16) & 0xFF;
+                b3 = word >>> 24;
+            } else {
+                b0 = word >>> 24;
+                b1 = (word >>> 16) & 0xFF;
+                b2 = (word >>> 8) & 0xFF;
+                b3 = word & 0xFF;
+            }
+            final long out = LITTLE_ENDIAN
+                    ? (ENCODE[b0] & 0xFFFFL) | (ENCODE[b1] & 0xFFFFL) << 16 | (ENCODE[b2] & 0xFFFFL) << 32 | (ENCODE[b3] & 0xFFFFL) << 48
+                    : (ENCODE[b0] & 0xFFFFL) << 48 | (ENCODE[b1] & 0xFFFFL) << 32 | (ENCODE[b2] & 0xFFFFL) << 16 | (ENCODE[b3] & 0xFFFFL);
+            MEMORY.writeLong(address + 2L * i, out);
+        }
+        for (; i < length; i++)
+            MEMORY.writeShort(address + 2L * i, ENCODE[MEMORY.readByte(from + i) & 0xFF]);
+        return address + 2L * length;
+    }
+
+    /**
+     * Decodes pairs of hex digits, in either case, to bytes.
+     *
+     * @param address of the hex digits
+     * @param length  the number of digits, which must be even
+     * @param to      the address to write the bytes to
+     * @return the end of the bytes written, to + length / 2
+     * @throws IllegalArgumentException if the length is odd or there is a character which is not a hex digit
+     */
+    public static long parseHex(long address, int length, long to) throws IllegalArgumentException {
+        if ((length & 1) != 0)
+            throw new IllegalArgumentException("Odd number of hex digits: " + length);
+        final int bytes = length >>> 1;
+        int i = 0;
+        // eight digits to four bytes at a time
+        for (; i <= bytes - 4; i += 4) {
+            final long word = MEMORY.readLong(address + 2L * i);
+            int out = 0;
+            for (int j = 0; j < 8; j++) {
+                final int ch = (int) (LITTLE_ENDIAN ? word >>> (j * 8) : word >>> (56 - j * 8)) & 0xFF;
+                final int digit = DECODE[ch];
+                if (digit < 0)
+                    throw invalidDigit(address, 2 * i + j);
+                out = out << 4 | digit;
+            }
+            MEMORY.writeInt(to + i, LITTLE_ENDIAN ? Integer.reverseBytes(out) : out);
+        }
+        for (; i < bytes; i++) {
+            final int hi = DECODE[MEMORY.readByte(address + 2L * i) & 0xFF];
+            final int lo = DECODE[MEMORY.readByte(address + 2L * i + 1) & 0xFF];
+            if ((hi | lo) < 0)
+                throw invalidDigit(address, hi < 0 ? 2 * i : 2 * i + 1);
+            MEMORY.writeByte(to + i, (byte) (hi << 4 | lo));
+        }
+        return to + bytes;
+    }
+
+    private static IllegalArgumentException invalidDigit(long address, int index) {
+        return new IllegalArgumentException("Invalid hex digit '" + (char) (MEMORY.readByte(address + index) & 0xFF) + "' at " + index);
+    }
+}
@@ -19,6 +19,7 @@ package net.openhft.chronicle.core.io;
 
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.util.StringUtils;
 
 import java.math.BigDecimal;
 
@@ -37,9 +38,12 @@ public final class UnsafeText {
     private UnsafeText() {
     }
 
-    private static final long MAX_VALUE_DIVIDE_5 = Long.MAX_VALUE / 5;
     private static final String MIN_VALUE_STR = "" + Long.MIN_VALUE;
     private static final long ARRAY_BYTE_BASE_OFFSET = Jvm.arrayByteBaseOffset();
+    private static final byte LATIN1 = 0;
+    private static final char REPLACEMENT = '\uFFFD';
+    // the smallest code point which needs each number of continuation bytes, anything less is overlong
+    private static final int[] MIN_FOR_EXTRA = {0, 0x80, 0x800, 0x10000};
 
     public static long appendFixed(long address, long num) {
         if (num >= 0) {
@@ -75,15 +79,28 @@ public final class UnsafeText {
         }
     }
 
+    /**
+     * Appends a double rounded to a fixed number of decimal places, without an exponent.
+     * Values too large to scale to a long are rounded from their shortest representation, and those of 1e31 or more are written as {@link #appendDouble(long, double)} does.
+     *
+     * @param address to start writing
+     * @param num     double value
+     * @param digits  the number of decimal places
+     * @return endOfAddress
+     */
     public static long appendFixed(long address, double num, int digits) {
         long tens = Maths.tens(digits);
         double mag = num * tens;
         if (Math.abs(mag) < 1L << 53) {
             long num2 = Math.round(mag);
             return appendBase10d(address, num2, digits);
-        } else {
-            return appendDouble(address, num);
         }
+        final double abs = Math.abs(num);
+        if (!(abs < 1e31))
+            return appendDouble(address, num);
+        if (num < 0)
+            MEMORY.writeByte(address++, (byte) '-');
+        return DoubleFormatter.toDecimal(address, abs, digits);
     }
 
     public static long appendBase10d(long address, long num, int decimal) {
@@ -111,7 +128,10 @@ public final class UnsafeText {
     }
 
     /**
-     * Internal method for low level appending a String. The caller must ensure there is at least 32 bytes available.
+     * Internal method for low level appending a double. The caller must ensure there is at least 32 bytes available.
+     * <p>
+     * The digits are the shortest which parse back to the same double, as in Double.toString for Java 19+, and no garbage is produced.
+     * Values from 6e-8 up to 1e31 are written without an exponent, other values use the same notation as Double.toString.
      *
      * @param address to start writing
      * @param d       double value
@@ -119,169 +139,23 @@ public final class UnsafeText {
      */
     //      throws BufferOverflowException, IllegalArgumentException
     public static long appendDouble(long address, double d) {
-        double abs = Math.abs(d);
-        // outside range so that !Double.isFinite(d) implicitly added.
-        if (6e-8 > abs || abs > 1e31) {
-            return appendDoubleString(address, d);
-        } else {
-            return appendDouble0(address, d);
-        }
-    }
-
-    static long appendDouble0(long address, double d) {
-        long val = Double.doubleToRawLongBits(d);
-        int sign = (int) (val >>> 63);
-        int exp = (int) ((val >>> 52) & 2047);
-        long mantissa = val & ((1L << 52) - 1);
-        if (sign != 0) {
+        if (Double.isNaN(d))
+            return appendText(address, "NaN");
+        if (Double.doubleToRawLongBits(d) < 0) {
             MEMORY.writeByte(address++, (byte) '-');
+            d = -d;
         }
-        if (exp == 0 && mantissa == 0) {
+        if (d == 0) {
             MEMORY.writeByte(address, (byte) '0');
             UNSAFE.putShort(address + 1, (short) ('.' + ('0' << 8)));
-            address += 3;
-            return address;
-
-        } else if (exp == 2047) {
-            return appendText(address,
-                    mantissa == 0 ? "Infinity" : "NaN");
-
-        } else if (exp > 0) {
-            mantissa += 1L << 52;
-        }
-        final int shift = (1023 + 52) - exp;
-
-        if (shift > 0) {
-            // integer and faction
-            if (shift < 53) {
-                return appendIntegerAndFraction(address, d, sign, mantissa, shift);
-
-            } else {
-                return appendFraction(address, d, sign, mantissa, shift);
-            }
-        }
-        // large number
-        return appendLargeNumber(address, mantissa, shift);
-    }
-
-    static final ThreadLocal<StringBuilder> TL_SB = ThreadLocal.withInitial(StringBuilder::new);
-    static long appendDoubleString(long address, double d) {
-        StringBuilder sb = TL_SB.get();
-        sb.setLength(0);
-        sb.append(d);
-        for (int i = 0; i < sb.length(); i++)
-            UNSAFE.putByte(address++, (byte) sb.charAt(i));
-        return address;
-    }
-
-    private static long appendLargeNumber(long address, long mantissa, int shift) {
-        mantissa <<= 10;
-        int precision = -10 - shift;
-        int digits = 0;
-        while ((precision > 53 || mantissa > Long.MAX_VALUE >> precision) && precision > 0) {
-            digits++;
-            precision--;
-            long mod = mantissa % 5;
-            mantissa /= 5;
-            int modDiv = 1;
-            while (mantissa < MAX_VALUE_DIVIDE_5 && precision > 1) {
-                precision -= 1;
-                mantissa <<= 1;
-                modDiv <<= 1;
-            }
-            mantissa += modDiv * mod / 5;
-        }
-        long val2 = precision > 0 ? mantissa << precision : mantissa >>> -precision;
-
-        address = appendFixed(address, val2);
-        for (int i = 0; i < digits; i++)
-            MEMORY.writeByte(address++, (byte) '0');
-        return address;
-    }
-
-    private static long appendFraction(long address, double d, int sign, long mantissa, int shift) {
-        long value = 0;
-        int digits = -1;
-        mantissa = mantissa << 9;
-        shift += 9;
-        do {
-            if (shift < 63) {
-                value = value * 10 + (mantissa >> shift);
-                mantissa &= (1L << shift) - 1;
-            }
-            if (mantissa >= Long.MAX_VALUE / 5) {
-                mantissa >>>= 3;
-                shift -= 3;
-            }
-            // times 10
-            mantissa *= 5;
-            shift--;
-            digits++;
-        } while (value < 1e17);
-        long value3 = value;
-        // back track
-        while (true) {
-            final long value2 = (value + 5) / 10;
-            final double parsedValue = Maths.asDouble(value2, 0, sign != 0, digits - 1);
-            if (parsedValue != d)
-                break;
-            digits--;
-            value3 = value2;
-            value = value / 10;
+            return address + 3;
         }
-
-        UNSAFE.putShort(address, (short) ('0' + ('.' << 8)));
-        address += 2;
-
-        long addressOfLastNonZero = address + digits;
-
-        do {
-            long num = value3 % 10;
-            value3 /= 10;
-            final char c = (char) ('0' + num);
-            digits--;
-            MEMORY.writeByte(address + digits, (byte) c);
-        } while (value3 > 0);
-        while (digits > 0) {
-            digits--;
-            UNSAFE.putByte(address + digits, (byte) '0');
-        }
-
-        return addressOfLastNonZero;
-    }
-
-    private static long appendIntegerAndFraction(long address, double d, int sign, long mantissa, int shift) {
-        long intValue = mantissa >> shift;
-        address = appendFixed(address, intValue);
-        mantissa -= intValue << shift;
-        if (mantissa > 0) {
-            MEMORY.writeByte(address++, (byte) '.');
-            mantissa <<= 1;
-            mantissa++;
-            int precision = shift + 1;
-            long error = 1;
-
-            long value = intValue;
-            int decimalPlaces = 0;
-            while (mantissa > error) {
-                // times 5*2 = 10
-                mantissa *= 5;
-                error *= 5;
-                precision--;
-                long num = (mantissa >> precision);
-                value = value * 10 + num;
-                MEMORY.writeByte(address++, (byte) ('0' + num));
-                mantissa -= num << precision;
-
-                final double parsedValue = Maths.asDouble(value, 0, sign != 0, ++decimalPlaces);
-                if (parsedValue == d)
-                    break;
-            }
-        } else {
-            UNSAFE.putShort(address, (short) ('.' + ('0' << 8)));
-            address += 2;
-        }
-        return address;
+        if (d == Double.POSITIVE_INFINITY)
+            return appendText(address, "Infinity");
+        if (6e-8 > d || d >= 1e31)
+            return DoubleFormatter.toDecimal(address, d, DoubleFormatter.SCIENTIFIC);
+        // numbers this large are always whole and are written without a trailing .0
+        return DoubleFormatter.toDecimal(address, d, d >= 0x1p52 ? DoubleFormatter.WHOLE : DoubleFormatter.PLAIN);
     }
 
     private static long appendText(long address, String s) {
@@ -308,4 +182,172 @@ public final class UnsafeText {
             MEMORY.writeByte(address + i, (byte) chars[i]);
         return address + len;
     }
+
+    /**
+     * Encodes text as UTF-8 without creating garbage. A lone surrogate is written as {@code '?'}.
+     *
+     * @param address to write to, there must be at least {@link #utf8Length(CharSequence)} bytes available
+     * @param cs      to encode
+     * @return the address after the last byte written
+     */
+    public static long appendUtf8(long address, CharSequence cs) {
+        final int len = cs.length();
+        if (Jvm.isJava9Plus()) {
+            byte[] bytes = null;
+            if (cs instanceof String && StringUtils.getStringCoder((String) cs) == LATIN1)
+                bytes = StringUtils.extractBytes((String) cs);
+            else if (cs instanceof StringBuilder && StringUtils.getStringCoder((StringBuilder) cs) == LATIN1)
+                bytes = StringUtils.extractBytes((StringBuilder) cs);
+            if (bytes != null) {
+                if (MEMORY.is7Bit(bytes, 0, len)) {
+                    MEMORY.copyMemory(bytes, 0, address, len);
+                    return address + len;
+                }
+                for (int i = 0; i < len; i++)
+                    address = appendUtf8Char(address, bytes[i] & 0xFF);
+                return address;
+            }
+        } else if (cs instanceof String) {
+            final char[] chars = StringUtils.extractChars((String) cs);
+            if (MEMORY.is7Bit(chars, 0, len))
+                return append8bit(address, chars, len);
+        }
+        for (int i = 0; i < len; i++) {
+            final char c = cs.charAt(i);
+            if (Character.isSurrogate(c)) {
+                final char c2;
+                if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(c2 = cs.charAt(i + 1))) {
+                    final int cp = Character.toCodePoint(c, c2);
+                    MEMORY.writeByte(address++, (byte) (0xF0 | (cp >> 18)));
+                    MEMORY.writeByte(address++, (byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    MEMORY.writeByte(address++, (byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    MEMORY.writeByte(address++, (byte) (0x80 | (cp & 0x3F)));
+                    i++;
+                } else {
+                    MEMORY.writeByte(address++, (byte) '?');
+                }
+            } else {
+                address = appendUtf8Char(address, c);
+            }
+        }
+        return address;
+    }
+
+    private static long appendUtf8Char(long address, int c) {
+        if (c < 0x80) {
+            MEMORY.writeByte(address++, (byte) c);
+        } else if (c < 0x800) {
+            MEMORY.writeByte(address++, (byte) (0xC0 | (c >> 6)));
+            MEMORY.writeByte(address++, (byte) (0x80 | (c & 0x3F)));
+        } else {
+            MEMORY.writeByte(address++, (byte) (0xE0 | (c >> 12)));
+            MEMORY.writeByte(address++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+            MEMORY.writeByte(address++, (byte) (0x80 | (c & 0x3F)));
+        }
+        return address;
+    }
+
+    private static long append8bit(long address, char[] chars, int len) {
+        for (int i = 0; i < len; i++)
+            MEMORY.writeByte(address + i, (byte) chars[i]);
+        return address + len;
+    }
+
+    /**
+     * @param cs text to measure
+     * @return the number of bytes {@link #appendUtf8(long, CharSequence)} would write
+     */
+    public static int utf8Length(CharSequence cs) {
+        final int len = cs.length();
+        int bytes = len;
+        for (int i = 0; i < len; i++) {
+            final char c = cs.charAt(i);
+            if (c < 0x80)
+                continue;
+            if (c < 0x800) {
+                bytes++;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                // two chars, four bytes
+                bytes += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Decodes UTF-8 into a StringBuilder, replacing its contents, without creating garbage once it has the capacity.
+     * A malformed sequence is decoded as {@code '\uFFFD'}.
+     *
+     * @param address of the first byte
+     * @param length  the number of bytes to decode
+     * @param sb      to decode into
+     */
+    public static void parseUtf8(long address, int length, StringBuilder sb) {
+        sb.setLength(0);
+        sb.ensureCapacity(length);
+        if (MEMORY.is7Bit(address, length)) {
+            if (!Jvm.isJava9Plus()) {
+                final char[] chars = StringUtils.extractChars(sb);
+                for (int i = 0; i < length; i++)
+                    chars[i] = (char) MEMORY.readByte(address + i);
+                StringUtils.setCount(sb, length);
+                return;
+            }
+            if (StringUtils.getStringCoder(sb) == LATIN1) {
+                final byte[] bytes = StringUtils.extractBytes(sb);
+                MEMORY.copy(address, bytes, 0, length);
+                StringUtils.setCount(sb, length);
+                return;
+            }
+        }
+        final long end = address + length;
+        while (address < end) {
+            final int b = MEMORY.readByte(address++);
+            if (b >= 0) {
+                sb.append((char) b);
+                continue;
+            }
+            final int extra;
+            int cp;
+            // 0xC0 and 0xC1 could only start an overlong sequence, 0xF5 and above one past the maximum code point
+            if ((b & 0xE0) == 0xC0 && (b & 0xFF) >= 0xC2) {
+                extra = 1;
+                cp = b & 0x1F;
+            } else if ((b & 0xF0) == 0xE0) {
+                extra = 2;
+                cp = b & 0x0F;
+            } else if ((b & 0xF8) == 0xF0 && (b & 0xFF) <= 0xF4) {
+                extra = 3;
+                cp = b & 0x07;
+            } else {
+                sb.append(REPLACEMENT);
+                continue;
+            }
+            // a sequence truncated by the end is malformed but the bytes before the end are still read
+            final int available = (int) Math.min(extra, end - address);
+            int i = 0;
+            for (; i < available; i++) {
+                final int b2 = MEMORY.readByte(address + i);
+                if ((b2 & 0xC0) != 0x80)
+                    break;
+                cp = (cp << 6) | (b2 & 0x3F);
+            }
+            if (i < extra || cp < MIN_FOR_EXTRA[extra] || cp > Character.MAX_CODE_POINT || (cp >= 0xD800 && cp <= 0xDFFF)) {
+                // malformed or overlong, resume from the next byte which isn't a continuation
+                address += i;
+                sb.append(REPLACEMENT);
+                continue;
+            }
+            address += extra;
+            if (cp >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                sb.append(Character.highSurrogate(cp));
+                sb.append(Character.lowSurrogate(cp));
+            } else {
+                sb.append((char) cp);
+            }
+        }
+    }
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.io;
+
+import net.openhft.chronicle.core.time.LongTime;
+import net.openhft.chronicle.core.time.SystemTimeProvider;
+import net.openhft.chronicle.core.time.TimeProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/**
+ * Writes and parses ISO-8601 timestamps in UTC, such as {@code 2023-04-05T06:07:08.123456Z}, directly to and from native memory without creating garbage.
+ * <p>
+ * The date prefix is cached, so timestamps on the same day only write the time of day digits.
+ * This class is not thread safe, each thread should use its own instance.
+ * NOTE: The caller has to ensure there is {@link #length()} bytes available.
+ */
+public final class UnsafeTimestamp {
+    static final long NANOS_PER_DAY = TimeUnit.DAYS.toNanos(1);
+    // yyyy-MM-ddT
+    private static final int DATE_LENGTH = 11;
+    // HH:mm:ss
+    private static final int TIME_LENGTH = 8;
+
+    private final int decimals;
+    private final long divisor;
+    @Nullable
+    private final TimeProvider timeProvider;
+    private final byte[] datePrefix = new byte[DATE_LENGTH];
+    private long dayStart = Long.MAX_VALUE;
+
+    /**
+     * {@link #appendNow(long)} uses {@link SystemTimeProvider#CLOCK} at the time it is called.
+     *
+     * @param precision of the fraction written, one of SECONDS, MILLISECONDS, MICROSECONDS or NANOSECONDS
+     */
+    public UnsafeTimestamp(@NotNull TimeUnit precision) {
+        this(precision, null);
+    }
+
+    /**
+     * @param precision    of the fraction written, one of SECONDS, MILLISECONDS, MICROSECONDS or NANOSECONDS
+     * @param timeProvider used by {@link #appendNow(long)}, or null for {@link SystemTimeProvider#CLOCK}
+     */
+    public UnsafeTimestamp(@NotNull TimeUnit precision, @Nullable TimeProvider timeProvider) {
+        switch (precision) {
+            case SECONDS:
+                decimals = 0;
+                break;
+            case MILLISECONDS:
+                decimals = 3;
+                break;
+            case MICROSECONDS:
+                decimals = 6;
+                break;
+            case NANOSECONDS:
+                decimals = 9;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported precision " + precision);
+        }
+        this.divisor = precision.toNanos(1);
+        this.timeProvider = timeProvider;
+    }
+
+    /**
+     * @return the number of bytes written by {@link #append(long, long)}
+     */
+    public int length() {
+        return DATE_LENGTH + TIME_LENGTH + (decimals == 0 ? 0 : 1 + decimals) + 1;
+    }
+
+    /**
+     * Writes the current time of the {@link TimeProvider}.
+     *
+     * @param address to start writing
+     * @return endOfAddress
+     */
+    public long appendNow(long address) {
+        final TimeProvider provider = timeProvider == null ? SystemTimeProvider.CLOCK : timeProvider;
+        return appendNanos(address, provider.currentTimeNanos());
+    }
+
+    /**
+     * Writes a timestamp, truncated to the precision of this writer.
+     *
+     * @param address to start writing
+     * @param time    since the epoch in seconds, millis, micros or nanos as determined by {@link LongTime#toNanos(long)}
+     * @return endOfAddress
+     */
+    public long append(long address, long time) {
+        return appendNanos(address, LongTime.toNanos(time));
+    }
+
+    private long appendNanos(long address, long nanos) {
+        long timeOfDay = nanos - dayStart;
+        if (timeOfDay < 0 || timeOfDay >= NANOS_PER_DAY) {
+            cacheDate(Math.floorDiv(nanos, NANOS_PER_DAY));
+            timeOfDay = nanos - dayStart;
+        }
+        MEMORY.copyMemory(datePrefix, 0, address, DATE_LENGTH);
+        address += DATE_LENGTH;
+
+        final int secondOfDay = (int) (timeOfDay / 1_000_000_000);
+        address = append2(address, secondOfDay / 3600);
+        MEMORY.writeByte(address++, (byte) ':');
+        address = append2(address, secondOfDay / 60 % 60);
+        MEMORY.writeByte(address++, (byte) ':');
+        address = append2(address, secondOfDay % 60);
+        if (decimals > 0) {
+            MEMORY.writeByte(address++, (byte) '.');
+            long fraction = timeOfDay % 1_000_000_000 / divisor;
+            for (int i = decimals - 1; i >= 0; i--) {
+                MEMORY.writeByte(address + i, (byte) ('0' + fraction % 10));
+                fraction /= 10;
+            }
+            address += decimals;
+        }
+        MEMORY.writeByte(address++, (byte) 'Z');
+        return address;
+    }
+
+    private void cacheDate(long epochDay) {
+        // civil from days, Howard Hinnant's algorithm for the proleptic Gregorian calendar
+        final long z = epochDay + 719_468;
+        final long era = Math.floorDiv(z, 146_097);
+        final int doe = (int) (z - era * 146_097);
+        final int yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        final int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        final int mp = (5 * doy + 2) / 153;
+        final int day = doy - (153 * mp + 2) / 5 + 1;
+        final int month = mp < 10 ? mp + 3 : mp - 9;
+        final int year = (int) (yoe + era * 400) + (month <= 2 ? 1 : 0);
+
+        final byte[] p = datePrefix;
+        p[0] = (byte) ('0' + year / 1000 % 10);
+        p[1] = (byte) ('0' + year / 100 % 10);
+        p[2] = (byte) ('0' + year / 10 % 10);
+        p[3] = (byte) ('0' + year % 10);
+        p[4] = '-';
+        p[5] = (byte) ('0' + month / 10);
+        p[6] = (byte) ('0' + month % 10);
+        p[7] = '-';
+        p[8] = (byte) ('0' + day / 10);
+        p[9] = (byte) ('0' + day % 10);
+        p[10] = 'T';
+        dayStart = epochDay * NANOS_PER_DAY;
+    }
+
+    private static long append2(long address, int value) {
+        MEMORY.writeByte(address, (byte) ('0' + value / 10));
+        MEMORY.writeByte(address + 1, (byte) ('0' + value % 10));
+        return address + 2;
+    }
+
+    /**
+     * Parses a timestamp of the form {@code yyyy-MM-ddTHH:mm:ss[.fffffffff][Z]} in UTC.
+     * A space may be used instead of the {@code T}, and the fraction may have from one to nine digits.
+     *
+     * @param address of the text
+     * @param length  of the text in bytes
+     * @return the nanoseconds since the epoch
+     * @throws IllegalArgumentException if the text is not a timestamp in this form
+     */
+    public static long parseNanos(long address, int length) throws IllegalArgumentException {
+        if (length < DATE_LENGTH + TIME_LENGTH)
+            throw invalidTimestamp(address, length);
+        final int year = parse4(address, length);
+        final int month = parse2(address, length, 5);
+        final int day = parse2(address, length, 8);
+        final int hour = parse2(address, length, 11);
+        final int minute = parse2(address, length, 14);
+        final int second = parse2(address, length, 17);
+        final byte sep = MEMORY.readByte(address + 10);
+        if (MEMORY.readByte(address + 4) != '-' || MEMORY.readByte(address + 7) != '-' || (sep != 'T' && sep != ' ')
+                || MEMORY.readByte(address + 13) != ':' || MEMORY.readByte(address + 16) != ':'
+                || month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 59)
+            throw invalidTimestamp(address, length);
+
+        int pos = DATE_LENGTH + TIME_LENGTH;
+        long fraction = 0;
+        if (pos < length && MEMORY.readByte(address + pos) == '.') {
+            pos++;
+            final int start = pos;
+            for (; pos < length && pos - start < 9; pos++) {
+                final int digit = MEMORY.readByte(address + pos) - '0';
+                if (digit < 0 || digit > 9)
+                    break;
+                fraction = fraction * 10 + digit;
+            }
+            if (pos == start)
+                throw invalidTimestamp(address, length);
+            for (int i = pos - start; i < 9; i++)
+                fraction *= 10;
+        }
+        if (pos < length && MEMORY.readByte(address + pos) == 'Z')
+            pos++;
+        if (pos != length)
+            throw invalidTimestamp(address, length);
+
+        return (epochDay(year, month, day) * 86_400 + hour * 3600 + minute * 60 + second) * 1_000_000_000L + fraction;
+    }
+
+    // days from civil, Howard Hinnant's algorithm for the proleptic Gregorian calendar
+    static long epochDay(int year, int month, int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = Math.floorDiv(y, 400);
+        final int yoe = y - era * 400;
+        final int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097L + doe - 719_468;
+    }
+
+    private static int parse4(long address, int length) {
+        return parse2(address, length, 0) * 100 + parse2(address, length, 2);
+    }
+
+    private static int parse2(long address, int length, int offset) {
+        final int d1 = MEMORY.readByte(address + offset) - '0';
+        final int d2 = MEMORY.readByte(address + offset + 1) - '0';
+        if (d1 < 0 || d1 > 9 || d2 < 0 || d2 > 9)
+            throw invalidTimestamp(address, length);
+        return d1 * 10 + d2;
+    }
+
+    @NotNull
+    private static IllegalArgumentException invalidTimestamp(long address, int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        UnsafeText.parseUtf8(address, length, sb);
+        return new IllegalArgumentException("Invalid timestamp '" + sb + "'");
+    }
+}
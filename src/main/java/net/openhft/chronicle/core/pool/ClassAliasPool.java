@@ -31,15 +31,25 @@ import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class ClassAliasPool implements ClassLookup {
     public static final ClassAliasPool CLASS_ALIASES = new ClassAliasPool(null).defaultAliases();
     static final ThreadLocal<CAPKey> CAP_KEY_TL = ThreadLocal.withInitial(() -> new CAPKey(null));
+    private static final int FREEZE_ATTEMPTS = 3;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ClassAliasPool, PerfectHashTable> FROZEN_ALIASES =
+            AtomicReferenceFieldUpdater.newUpdater(ClassAliasPool.class, PerfectHashTable.class, "frozenAliases");
     private final ClassLookup parent;
     private final ClassLoader classLoader;
     private final Map<CAPKey, Class<?>> stringClassMap = new ConcurrentHashMap<>();
     private final Map<CAPKey, Class<?>> stringClassMap2 = new ConcurrentHashMap<>();
     private final Map<Class<?>, String> classStringMap = new ConcurrentHashMap<>();
+    // an immutable copy of the aliases checked before the maps, or null if not frozen
+    private volatile PerfectHashTable<Class<?>> frozenAliases;
+    // bumped after every change to the aliases so freeze() can tell if its copy is stale
+    private final AtomicLong modCount = new AtomicLong();
 
     ClassAliasPool(ClassLookup parent, ClassLoader classLoader) {
         this.parent = parent;
@@ -100,6 +110,7 @@ public class ClassAliasPool implements ClassLookup {
         clean(stringClassMap.values());
         clean(stringClassMap2.values());
         clean(classStringMap.keySet());
+        modified();
     }
 
     private void clean(@NotNull Iterable<Class<?>> coll) {
@@ -117,6 +128,12 @@ public class ClassAliasPool implements ClassLookup {
     @NotNull
     public Class<?> forName(@NotNull CharSequence name) throws ClassNotFoundRuntimeException {
         Objects.requireNonNull(name);
+        PerfectHashTable<Class<?>> frozen = frozenAliases;
+        if (frozen != null) {
+            Class<?> clazz = frozen.get(name);
+            if (clazz != null)
+                return clazz;
+        }
         CAPKey key = CAP_KEY_TL.get();
         key.value = name;
         Class<?> clazz = stringClassMap.get(key);
@@ -193,10 +210,49 @@ public class ClassAliasPool implements ClassLookup {
         return clazz.getName();
     }
 
+    /**
+     * Compiles the aliases added so far into an immutable perfect hash table which {@link #forName(CharSequence)} checks first.
+     * Names not in the table, e.g. classes loaded by name later, fall through to the maps as before.
+     * <p>
+     * Call this once the aliases have been added at startup. Adding an alias or removing classes afterwards discards the table, and it can be frozen again.
+     * If the aliases change while the table is being built, it is withdrawn and built again, and after a few attempts the pool is left unfrozen.
+     */
+    public void freeze() {
+        for (int i = 0; i < FREEZE_ATTEMPTS; i++) {
+            long count = modCount.get();
+            Map<String, Class<?>> aliases = new LinkedHashMap<>();
+            stringClassMap.forEach((k, v) -> aliases.put(k.toString(), v));
+            stringClassMap2.forEach((k, v) -> aliases.putIfAbsent(k.toString(), v));
+            PerfectHashTable<Class<?>> table = PerfectHashTable.of(aliases);
+            if (table == null)
+                return;
+            if (modCount.get() != count)
+                continue;
+            PerfectHashTable<Class<?>> prev = frozenAliases;
+            if (!FROZEN_ALIASES.compareAndSet(this, prev, table))
+                continue;
+            // a change which cleared the table before it was published is still seen here
+            if (modCount.get() == count)
+                return;
+            FROZEN_ALIASES.compareAndSet(this, table, null);
+        }
+    }
+
+    public boolean isFrozen() {
+        return frozenAliases != null;
+    }
+
     public void removePackage(String pkgName) {
         stringClassMap.entrySet().removeIf(e -> testPackage(pkgName, e.getValue()));
         stringClassMap2.entrySet().removeIf(e -> testPackage(pkgName, e.getValue()));
         classStringMap.entrySet().removeIf(e -> testPackage(pkgName, e.getKey()));
+        modified();
+    }
+
+    // not synchronized, as static initializers run by forName0 under the lock may add aliases
+    private void modified() {
+        modCount.incrementAndGet();
+        frozenAliases = null;
     }
 
     @Override
@@ -209,6 +265,7 @@ public class ClassAliasPool implements ClassLookup {
             stringClassMap2.putIfAbsent(new CAPKey(toCamelCase(clazz.getSimpleName())), clazz);
             classStringMap.computeIfAbsent(clazz, Class::getSimpleName);
         }
+        modified();
     }
 
     // to lower camel case.
@@ -227,6 +284,7 @@ public class ClassAliasPool implements ClassLookup {
             Class<?> prev1 = stringClassMap.putIfAbsent(new CAPKey(clazz.getName()), clazz);
             warnIfChanged(prev1, clazz, "Did not replace by name");
         }
+        modified();
     }
 
     private void warnIfChanged(Class<?> prev, Class<?> clazz, String msg) {
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2016-2020 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.pool;
+
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.util.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * A sibling of {@link ParsingCache} for values which are expensive to parse.
+ * Each hash maps to a bucket of {@link #WAYS} entries and, when the bucket is full, an entry is chosen with CLOCK, or second chance, eviction.
+ * An entry which has been looked up since the hand last passed it is skipped, so hot entries are not evicted by a burst of one-off values.
+ * </p><p>
+ * It counts hits, misses and evictions, and optionally doubles in capacity up to a maximum when, over the last capacity's worth of evictions, the miss rate exceeds a threshold.
+ * </p><p>
+ * Like ParsingCache, it is not thread safe.
+ * </p>
+ */
+public class ClockParsingCache<E> {
+    public static final int WAYS = 4;
+    private static final int WAYS_SHIFT = 2;
+
+    private final Function<String, E> eFunction;
+    private final int maxCapacity;
+    private final double maxMissRate;
+    private Entry<E>[] entries;
+    private byte[] hands;
+    private int bucketMask;
+    private long hits, misses, evictions;
+    // for adaptive resizing
+    private int windowEvictions;
+    private long windowLookups, windowMisses;
+
+    public ClockParsingCache(int capacity, Function<String, E> eFunction) throws IllegalArgumentException {
+        this(capacity, capacity, 1.0, eFunction);
+    }
+
+    /**
+     * @param capacity    the initial capacity, rounded up to a power of 2
+     * @param maxCapacity the capacity it can double up to
+     * @param maxMissRate the fraction of lookups which can miss before it grows
+     * @param eFunction   to parse a String on a miss
+     */
+    public ClockParsingCache(int capacity, int maxCapacity, double maxMissRate, Function<String, E> eFunction) throws IllegalArgumentException {
+        if (maxCapacity < capacity)
+            throw new IllegalArgumentException("maxCapacity " + maxCapacity + " < capacity " + capacity);
+        if (!(maxMissRate > 0 && maxMissRate <= 1))
+            throw new IllegalArgumentException("maxMissRate " + maxMissRate + " must be in (0, 1]");
+        this.eFunction = eFunction;
+        this.maxCapacity = Maths.nextPower2(maxCapacity, 128);
+        this.maxMissRate = maxMissRate;
+        init(Maths.nextPower2(capacity, 128));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void init(int capacity) {
+        entries = (Entry<E>[]) new Entry[capacity];
+        hands = new byte[capacity >> WAYS_SHIFT];
+        bucketMask = hands.length - 1;
+    }
+
+    /**
+     * @return the current number of entries it can hold
+     */
+    public int capacity() {
+        return entries.length;
+    }
+
+    @Nullable
+    public E intern(@Nullable CharSequence cs) {
+        if (cs == null)
+            return null;
+        final int hash = Maths.hash32(cs);
+        final int base = (hash & bucketMask) << WAYS_SHIFT;
+        for (int i = base; i < base + WAYS; i++) {
+            final Entry<E> entry = entries[i];
+            if (entry != null && entry.hash == hash && StringUtils.isEqual(entry.string, cs))
+                return hit(entry);
+        }
+        return miss(hash, cs.toString());
+    }
+
+    /**
+     * Looks up ISO-8859-1 text in native memory, only creating a String and parsing it if it is not already held.
+     *
+     * @param address of the text
+     * @param length  of the text in bytes
+     * @return the parsed value
+     */
+    public E intern(long address, int length) {
+        final int hash = Maths.hash32(address, length);
+        final int base = (hash & bucketMask) << WAYS_SHIFT;
+        for (int i = base; i < base + WAYS; i++) {
+            final Entry<E> entry = entries[i];
+            if (entry != null && entry.hash == hash && StringUtils.isEqual(entry.string, address, length))
+                return hit(entry);
+        }
+        return miss(hash, StringUtils.newString(address, length));
+    }
+
+    /**
+     * Looks up ISO-8859-1 text in a byte[], only creating a String and parsing it if it is not already held.
+     *
+     * @param bytes  containing the text
+     * @param offset of the text
+     * @param length of the text
+     * @return the parsed value
+     */
+    public E intern(@NotNull byte[] bytes, int offset, int length) {
+        final int hash = Maths.hash32(bytes, offset, length);
+        final int base = (hash & bucketMask) << WAYS_SHIFT;
+        for (int i = base; i < base + WAYS; i++) {
+            final Entry<E> entry = entries[i];
+            if (entry != null && entry.hash == hash && StringUtils.isEqual(entry.string, bytes, offset, length))
+                return hit(entry);
+        }
+        return miss(hash, new String(bytes, offset, length, StandardCharsets.ISO_8859_1));
+    }
+
+    private E hit(Entry<E> entry) {
+        hits++;
+        entry.referenced = true;
+        return entry.e;
+    }
+
+    private E miss(int hash, String string) {
+        misses++;
+        final Entry<E> entry = new Entry<>(hash, string, eFunction.apply(string));
+        if (add(entry)) {
+            evictions++;
+            if (++windowEvictions >= entries.length)
+                checkMissRate();
+        }
+        return entry.e;
+    }
+
+    // adds to an empty way of the bucket, otherwise evicts the first entry the hand finds unreferenced, returns true if it evicted
+    private boolean add(Entry<E> entry) {
+        final int bucket = entry.hash & bucketMask;
+        final int base = bucket << WAYS_SHIFT;
+        for (int i = base; i < base + WAYS; i++) {
+            if (entries[i] == null) {
+                entries[i] = entry;
+                return false;
+            }
+        }
+        int hand = hands[bucket];
+        while (true) {
+            final Entry<E> candidate = entries[base + hand];
+            if (!candidate.referenced)
+                break;
+            // second chance
+            candidate.referenced = false;
+            hand = (hand + 1) & (WAYS - 1);
+        }
+        entries[base + hand] = entry;
+        hands[bucket] = (byte) ((hand + 1) & (WAYS - 1));
+        return true;
+    }
+
+    private void checkMissRate() {
+        final long lookups = hits + misses;
+        final long windowMisses = misses - this.windowMisses;
+        final long windowLookups = lookups - this.windowLookups;
+        this.windowEvictions = 0;
+        this.windowMisses = misses;
+        this.windowLookups = lookups;
+        if (entries.length >= maxCapacity || windowMisses <= windowLookups * maxMissRate)
+            return;
+        final Entry<E>[] old = entries;
+        init(old.length * 2);
+        for (Entry<E> entry : old)
+            if (entry != null)
+                add(entry);
+    }
+
+    /**
+     * @return the number of lookups which found an existing value
+     */
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups which parsed a new value
+     */
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of values replaced by another
+     */
+    public long evictions() {
+        return evictions;
+    }
+
+    /**
+     * @return misses / lookups, or 0 if there have been none
+     */
+    public double missRate() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) misses / lookups;
+    }
+
+    public void resetCounters() {
+        hits = misses = evictions = 0;
+        windowLookups = windowMisses = 0;
+        windowEvictions = 0;
+    }
+
+    public int valueCount() {
+        int count = 0;
+        for (Entry<E> entry : entries)
+            if (entry != null)
+                count++;
+        return count;
+    }
+
+    static final class Entry<E> {
+        final int hash;
+        final String string;
+        final E e;
+        boolean referenced;
+
+        Entry(int hash, String string, E e) {
+            this.hash = hash;
+            this.string = string;
+            this.e = e;
+        }
+    }
+}
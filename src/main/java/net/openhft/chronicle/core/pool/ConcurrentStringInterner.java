@@ -0,0 +1,219 @@
+/*
+ * Copyright 2016-2020 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.pool;
+
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.util.StringUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * A thread safe sibling of {@link StringInterner} using the same two choices of slot for each hash.
+ * Strings are published safely so every thread sees a fully constructed String for a slot, and the hit, miss and eviction counts can be used to size it.
+ * </p><p>
+ * As it is still a cache, two threads adding the same string at the same time may get different String objects, and a string can be evicted at any time.
+ * </p><p>
+ * Optionally, it doubles in capacity up to a maximum when, over the last capacity's worth of evictions, the miss rate exceeds a threshold.
+ * </p>
+ */
+public class ConcurrentStringInterner {
+    // one in this many evictions checks whether a window has passed, so evicting threads don't all update one counter
+    private static final int CHECK_EVERY = 16;
+
+    private final int maxCapacity;
+    private final double maxMissRate;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    // only one thread checks the window and replaces the table at a time
+    private final AtomicBoolean checking = new AtomicBoolean();
+    private volatile Table table;
+    // the counts at the start of the current window for adaptive resizing, only changed while checking
+    private volatile long windowEvictions;
+    private volatile long windowLookups;
+    private volatile long windowMisses;
+
+    public ConcurrentStringInterner(int capacity) throws IllegalArgumentException {
+        this(capacity, capacity, 1.0);
+    }
+
+    /**
+     * @param capacity    the initial capacity, rounded up to a power of 2
+     * @param maxCapacity the capacity it can double up to
+     * @param maxMissRate the fraction of lookups which can miss before it grows
+     */
+    public ConcurrentStringInterner(int capacity, int maxCapacity, double maxMissRate) throws IllegalArgumentException {
+        if (maxCapacity < capacity)
+            throw new IllegalArgumentException("maxCapacity " + maxCapacity + " < capacity " + capacity);
+        if (!(maxMissRate > 0 && maxMissRate <= 1))
+            throw new IllegalArgumentException("maxMissRate " + maxMissRate + " must be in (0, 1]");
+        this.table = new Table(Maths.nextPower2(capacity, 128));
+        this.maxCapacity = Maths.nextPower2(maxCapacity, 128);
+        this.maxMissRate = maxMissRate;
+    }
+
+    /**
+     * @return the current number of slots
+     */
+    public int capacity() {
+        return table.strings.length();
+    }
+
+    @Nullable
+    public String intern(@Nullable CharSequence cs) {
+        if (cs == null)
+            return null;
+        final Table t = this.table;
+        final AtomicReferenceArray<String> strings = t.strings;
+        if (cs.length() > strings.length())
+            return cs.toString();
+        int hash = Maths.hash32(cs);
+        int h = hash & t.mask;
+        String s = strings.get(h);
+        if (StringUtils.isEqual(cs, s)) {
+            hits.increment();
+            return s;
+        }
+        int h2 = (hash >> t.shift) & t.mask;
+        String s2 = strings.get(h2);
+        if (StringUtils.isEqual(cs, s2)) {
+            hits.increment();
+            return s2;
+        }
+        misses.increment();
+        String s3 = cs.toString();
+        if (s == null) {
+            strings.lazySet(h, s3);
+        } else if (s2 == null) {
+            strings.lazySet(h2, s3);
+        } else {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            strings.lazySet(random.nextBoolean() ? h : h2, s3);
+            evictions.increment();
+            if (strings.length() < maxCapacity && random.nextInt(CHECK_EVERY) == 0)
+                checkMissRate(t);
+        }
+        return s3;
+    }
+
+    // a window is the last capacity's worth of evictions
+    private void checkMissRate(Table t) {
+        if (!checking.compareAndSet(false, true))
+            return;
+        try {
+            final int capacity = t.strings.length();
+            final long evictions = this.evictions.sum();
+            if (table != t || evictions - windowEvictions < capacity)
+                return;
+            final long misses = this.misses.sum();
+            final long lookups = misses + hits.sum();
+            final long windowMisses = misses - this.windowMisses;
+            final long windowLookups = lookups - this.windowLookups;
+            this.windowEvictions = evictions;
+            this.windowMisses = misses;
+            this.windowLookups = lookups;
+            if (windowMisses <= windowLookups * maxMissRate)
+                return;
+            final Table bigger = new Table(capacity * 2);
+            for (int i = 0; i < capacity; i++) {
+                String s = t.strings.get(i);
+                if (s != null)
+                    bigger.add(s);
+            }
+            table = bigger;
+        } finally {
+            checking.set(false);
+        }
+    }
+
+    /**
+     * @return the number of lookups which found an existing String
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups which created a new String
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of Strings replaced by another
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return misses / lookups, or 0 if there have been none
+     */
+    public double missRate() {
+        final long misses = this.misses.sum();
+        final long lookups = misses + hits.sum();
+        return lookups == 0 ? 0 : (double) misses / lookups;
+    }
+
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        windowEvictions = windowLookups = windowMisses = 0;
+    }
+
+    public int valueCount() {
+        final AtomicReferenceArray<String> strings = table.strings;
+        int count = 0;
+        for (int i = 0; i < strings.length(); i++)
+            if (strings.get(i) != null)
+                count++;
+        return count;
+    }
+
+    static final class Table {
+        final AtomicReferenceArray<String> strings;
+        final int mask;
+        final int shift;
+
+        Table(int capacity) {
+            strings = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+            shift = Maths.intLog2(capacity);
+        }
+
+        void add(String s) {
+            int hash = Maths.hash32(s);
+            int h = hash & mask;
+            if (strings.get(h) == null) {
+                strings.lazySet(h, s);
+                return;
+            }
+            int h2 = (hash >> shift) & mask;
+            if (strings.get(h2) == null)
+                strings.lazySet(h2, s);
+        }
+    }
+}
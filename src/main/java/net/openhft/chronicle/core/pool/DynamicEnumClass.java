@@ -20,21 +20,30 @@ package net.openhft.chronicle.core.pool;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.OS;
 import net.openhft.chronicle.core.util.CoreDynamicEnum;
+import net.openhft.chronicle.core.util.StringUtils;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.TestOnly;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Function;
 
 public class DynamicEnumClass<E extends CoreDynamicEnum<E>> extends EnumCache<E> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DynamicEnumClass, Names> NAMES =
+            AtomicReferenceFieldUpdater.newUpdater(DynamicEnumClass.class, Names.class, "names");
     final Map<String, E> eMap = Collections.synchronizedMap(new LinkedHashMap<>());
     final List<E> eList = new ArrayList<>();
     E[] values = null;
     private final Field nameField;
     private final Field ordinalField;
     private final Function<String, E> create = this::create;
+    // incremented when a value is added so the table of names can be checked without locking eMap
+    private volatile int version;
+    private volatile Names<E> names;
 
     DynamicEnumClass(Class<E> eClass) {
         super(eClass);
@@ -78,11 +87,50 @@ public class DynamicEnumClass<E extends CoreDynamicEnum<E>> extends EnumCache<E>
         return eMap.computeIfAbsent(name, create);
     }
 
+    @Override
+    E valueOf(@NotNull CharSequence name) {
+        final PerfectHashTable<E> names = names();
+        final E e = names == null ? null : names.get(name);
+        return e != null ? e : valueOf(name.toString());
+    }
+
+    @Override
+    E valueOf(long address, int length) {
+        final PerfectHashTable<E> names = names();
+        final E e = names == null ? null : names.get(address, length);
+        return e != null ? e : valueOf(StringUtils.newString(address, length));
+    }
+
+    /**
+     * Values added since the table was built are found in eMap when the table misses.
+     * The table is only rebuilt once more than a quarter as many values again have been added, so the cost of rebuilding stays linear overall.
+     *
+     * @return the table of names, or null if they couldn't be put in a table
+     */
+    PerfectHashTable<E> names() {
+        final Names<E> names = this.names;
+        if (names != null && version - names.version <= names.size / 4)
+            return names.table;
+        final Map<String, E> snapshot;
+        final int snapshotVersion;
+        synchronized (eMap) {
+            snapshotVersion = version;
+            snapshot = new HashMap<>(eMap);
+        }
+        // build outside the lock so values can be added meanwhile
+        final Names<E> built = new Names<>(PerfectHashTable.of(snapshot), snapshotVersion, snapshot.size());
+        // not published if values were added while building, this lookup can still use it
+        if (version == snapshotVersion)
+            NAMES.compareAndSet(this, names, built);
+        return built.table;
+    }
+
     // called while holding a lock on eMap
     private E create(String name) {
         try {
             E e = OS.memory().allocateInstance(type);
             nameField.set(e, name);
+            version++;
             if (ordinalField != null) {
                 ordinalField.set(e, eMap.size());
                 eList.add(e);
@@ -131,5 +179,19 @@ public class DynamicEnumClass<E extends CoreDynamicEnum<E>> extends EnumCache<E>
         eMap.clear();
         eList.clear();
         reset0();
+        version++;
+        names = null;
+    }
+
+    static final class Names<E> {
+        final PerfectHashTable<E> table;
+        final int version;
+        final int size;
+
+        Names(PerfectHashTable<E> table, int version, int size) {
+            this.table = table;
+            this.version = version;
+            this.size = size;
+        }
     }
 }
@@ -19,6 +19,8 @@ package net.openhft.chronicle.core.pool;
 
 import net.openhft.chronicle.core.ClassLocal;
 import net.openhft.chronicle.core.util.CoreDynamicEnum;
+import net.openhft.chronicle.core.util.StringUtils;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.Map;
 import java.util.Set;
@@ -44,6 +46,20 @@ public abstract class EnumCache<E> {
 
     public abstract E valueOf(String name);
 
+    /**
+     * As {@link #valueOf(String)}, overridden to avoid creating a String when the name is known.
+     */
+    E valueOf(@NotNull CharSequence name) {
+        return valueOf(name.toString());
+    }
+
+    /**
+     * As {@link #valueOf(String)} for ISO-8859-1 text in native memory, overridden to avoid creating a String when the name is known.
+     */
+    E valueOf(long address, int length) {
+        return valueOf(StringUtils.newString(address, length));
+    }
+
     public abstract int size();
 
     public Class<?> type() {
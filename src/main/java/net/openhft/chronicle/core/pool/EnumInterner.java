@@ -61,8 +61,24 @@ public class EnumInterner<E extends Enum<E>> {
         E e = interner[h];
         if (e != null && StringUtils.isEqual(e.name(), cs))
             return e;
-        @NotNull String s2 = cs.toString();
-        E value = enumCache.valueOf(s2);
+        E value = enumCache.valueOf(cs);
+        interner[h] = value;
+        return value;
+    }
+
+    /**
+     * Looks up ISO-8859-1 text in native memory, only creating a String if it is not the name of a value.
+     *
+     * @param address of the text
+     * @param length  of the text in bytes
+     * @return the value
+     */
+    public E intern(long address, int length) {
+        int h = Maths.hash32(address, length) & mask;
+        E e = interner[h];
+        if (e != null && StringUtils.isEqual(e.name(), address, length))
+            return e;
+        E value = enumCache.valueOf(address, length);
         interner[h] = value;
         return value;
     }
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016-2020 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.pool;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.StackTrace;
+import net.openhft.chronicle.core.io.Resettable;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A pool of objects which are {@link Resettable#reset()} when released so they can be acquired again.
+ * </p><p>
+ * Each thread takes from and releases to a magazine of its own. A full magazine is pushed to a lock-free depot shared by all threads,
+ * and a thread with an empty magazine takes a full one from the depot, so threads only contend once per magazine.
+ * An object can be released on a different thread from the one which acquired it.
+ * </p><p>
+ * The depot holds at most maxRetained objects, and each thread up to one magazine more. Objects released when the depot is full are discarded.
+ * </p><p>
+ * With tracing, which defaults to {@link Jvm#isResourceTracing()}, releasing an object twice throws an IllegalStateException with the stack trace of the first release.
+ * </p>
+ *
+ * @param <T> the type of object pooled
+ */
+public class ObjectPool<T extends Resettable> {
+    private final Supplier<T> factory;
+    private final int magazineSize;
+    private final int maxMagazines;
+    private final ThreadLocal<Local> localTL;
+    private final AtomicReference<Node> depot = new AtomicReference<>();
+    private final AtomicInteger depotSize = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    // objects in the pool and where they were released, only if tracing
+    private final Map<T, StackTrace> releasedHere;
+
+    public ObjectPool(@NotNull Supplier<T> factory) {
+        this(factory, 64, 4096, Jvm.isResourceTracing());
+    }
+
+    /**
+     * @param factory      to create an object when none is pooled
+     * @param magazineSize the number of objects each thread holds before exchanging with the depot
+     * @param maxRetained  the most objects the depot can hold
+     * @param tracing      whether to detect an object being released twice
+     */
+    public ObjectPool(@NotNull Supplier<T> factory, int magazineSize, int maxRetained, boolean tracing) {
+        if (magazineSize < 1)
+            throw new IllegalArgumentException("magazineSize " + magazineSize + " must be at least 1");
+        if (maxRetained < 0)
+            throw new IllegalArgumentException("maxRetained " + maxRetained + " must not be negative");
+        this.factory = factory;
+        this.magazineSize = magazineSize;
+        this.maxMagazines = maxRetained / magazineSize;
+        this.localTL = ThreadLocal.withInitial(Local::new);
+        this.releasedHere = tracing ? Collections.synchronizedMap(new IdentityHashMap<>()) : null;
+    }
+
+    /**
+     * @return a pooled object, or a new one if there are none
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        final Local local = localTL.get();
+        Magazine magazine = local.loaded;
+        if (magazine.size == 0) {
+            final Magazine full = pop();
+            if (full == null) {
+                created.increment();
+                return factory.get();
+            }
+            local.spare = magazine;
+            local.loaded = magazine = full;
+        }
+        final T t = (T) magazine.objects[--magazine.size];
+        magazine.objects[magazine.size] = null;
+        if (releasedHere != null)
+            releasedHere.remove(t);
+        return t;
+    }
+
+    /**
+     * Resets an object and returns it to the pool. It must not be used after this.
+     *
+     * @throws IllegalStateException if tracing and the object is already in the pool
+     */
+    public void release(@NotNull T t) throws IllegalStateException {
+        if (releasedHere != null) {
+            final StackTrace previous = releasedHere.putIfAbsent(t, new StackTrace("Released here"));
+            if (previous != null)
+                throw new IllegalStateException(t.getClass().getName() + " already released", previous);
+        }
+        t.reset();
+        final Local local = localTL.get();
+        Magazine magazine = local.loaded;
+        if (magazine.size == magazineSize) {
+            if (!push(magazine)) {
+                // the depot is full so discard this magazine's objects
+                discard(magazine);
+            } else {
+                local.loaded = magazine = local.spare != null ? local.spare : new Magazine(magazineSize);
+                local.spare = null;
+            }
+        }
+        magazine.objects[magazine.size++] = t;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void discard(Magazine magazine) {
+        for (int i = 0; i < magazine.size; i++) {
+            if (releasedHere != null)
+                releasedHere.remove((T) magazine.objects[i]);
+            magazine.objects[i] = null;
+        }
+        magazine.size = 0;
+    }
+
+    private boolean push(Magazine magazine) {
+        if (depotSize.incrementAndGet() > maxMagazines) {
+            depotSize.decrementAndGet();
+            return false;
+        }
+        // a new node for each push so a node is never reused while another thread is popping it
+        final Node node = new Node(magazine);
+        do {
+            node.next = depot.get();
+        } while (!depot.compareAndSet(node.next, node));
+        return true;
+    }
+
+    private Magazine pop() {
+        Node node;
+        do {
+            node = depot.get();
+            if (node == null)
+                return null;
+        } while (!depot.compareAndSet(node, node.next));
+        depotSize.decrementAndGet();
+        return node.magazine;
+    }
+
+    /**
+     * @return the number of objects created by the factory because none were pooled
+     */
+    public long created() {
+        return created.sum();
+    }
+
+    /**
+     * @return the number of objects in the depot, not counting those held by threads
+     */
+    public int depotCount() {
+        return depotSize.get() * magazineSize;
+    }
+
+    static final class Magazine {
+        final Object[] objects;
+        int size;
+
+        Magazine(int magazineSize) {
+            objects = new Object[magazineSize];
+        }
+    }
+
+    static final class Node {
+        final Magazine magazine;
+        Node next;
+
+        Node(Magazine magazine) {
+            this.magazine = magazine;
+        }
+    }
+
+    final class Local {
+        Magazine loaded = new Magazine(magazineSize);
+        Magazine spare;
+    }
+}
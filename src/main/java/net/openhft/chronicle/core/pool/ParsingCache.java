@@ -23,6 +23,7 @@ import net.openhft.chronicle.core.util.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -63,6 +64,57 @@ public class ParsingCache<E> {
         return s3.e;
     }
 
+    /**
+     * Looks up ISO-8859-1 text in native memory, only creating a String and parsing it if it is not already held.
+     * 7-bit text uses the same slots as {@link #intern(CharSequence)}.
+     *
+     * @param address of the text
+     * @param length  of the text in bytes
+     * @return the parsed value
+     */
+    public E intern(long address, int length) {
+        int hash = Maths.hash32(address, length);
+        int h = hash & mask;
+        ParsedData<E> s = interner[h];
+        if (s != null && StringUtils.isEqual(s.string, address, length))
+            return s.e;
+        int h2 = (hash >> shift) & mask;
+        ParsedData<E> s2 = interner[h2];
+        if (s2 != null && StringUtils.isEqual(s2.string, address, length))
+            return s2.e;
+        @NotNull String string = StringUtils.newString(address, length);
+        @NotNull ParsedData<E> s3 = new ParsedData<>(string, eFunction.apply(string));
+        interner[s == null || (s2 != null && toggle()) ? h : h2] = s3;
+
+        return s3.e;
+    }
+
+    /**
+     * Looks up ISO-8859-1 text in a byte[], only creating a String and parsing it if it is not already held.
+     * 7-bit text uses the same slots as {@link #intern(CharSequence)}.
+     *
+     * @param bytes  containing the text
+     * @param offset of the text
+     * @param length of the text
+     * @return the parsed value
+     */
+    public E intern(@NotNull byte[] bytes, int offset, int length) {
+        int hash = Maths.hash32(bytes, offset, length);
+        int h = hash & mask;
+        ParsedData<E> s = interner[h];
+        if (s != null && StringUtils.isEqual(s.string, bytes, offset, length))
+            return s.e;
+        int h2 = (hash >> shift) & mask;
+        ParsedData<E> s2 = interner[h2];
+        if (s2 != null && StringUtils.isEqual(s2.string, bytes, offset, length))
+            return s2.e;
+        @NotNull String string = new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        @NotNull ParsedData<E> s3 = new ParsedData<>(string, eFunction.apply(string));
+        interner[s == null || (s2 != null && toggle()) ? h : h2] = s3;
+
+        return s3.e;
+    }
+
     protected boolean toggle() {
         toggle = !toggle;
         return toggle;
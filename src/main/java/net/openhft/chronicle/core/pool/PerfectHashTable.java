@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016-2020 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.pool;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.util.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable table of names built with hash and displace. Each {@link Maths#hash64(CharSequence)} selects a bucket,
+ * and each bucket has a displacement chosen so every name has a slot of its own, so a lookup checks only one slot and doesn't allocate.
+ */
+final class PerfectHashTable<V> {
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final int MAX_DISPLACEMENT = 1 << 16;
+
+    private final int size;
+    private final int bucketMask;
+    private final int shift;
+    private final int[] displacements;
+    private final long[] hashes;
+    private final String[] names;
+    private final Object[] values;
+
+    private PerfectHashTable(int size, int buckets, int slots) {
+        this.size = size;
+        bucketMask = buckets - 1;
+        shift = 64 - Maths.intLog2(slots);
+        displacements = new int[buckets];
+        hashes = new long[slots];
+        names = new String[slots];
+        values = new Object[slots];
+    }
+
+    /**
+     * @return the table, or null if the names couldn't be separated, e.g. if two have the same hash64
+     */
+    @Nullable
+    static <V> PerfectHashTable<V> of(@NotNull Map<String, V> map) {
+        final int n = map.size();
+        for (int slots = Maths.nextPower2(n * 2, 2); slots <= n * 16 + 2; slots *= 2) {
+            PerfectHashTable<V> table = new PerfectHashTable<>(n, Maths.nextPower2(n / 2, 1), slots);
+            if (table.fill(map))
+                return table;
+        }
+        Jvm.debug().on(PerfectHashTable.class, "Unable to build a table of " + n + " names");
+        return null;
+    }
+
+    private boolean fill(Map<String, V> map) {
+        final List<List<String>> buckets = new ArrayList<>();
+        for (int i = 0; i <= bucketMask; i++)
+            buckets.add(new ArrayList<>());
+        for (String name : map.keySet())
+            buckets.get((int) Maths.hash64(name) & bucketMask).add(name);
+        final Integer[] order = new Integer[buckets.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        // place the largest buckets first while there is the most room
+        Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+        final int[] bucketSlots = new int[buckets.get(order[0]).size()];
+        for (int b : order) {
+            final List<String> bucket = buckets.get(b);
+            if (bucket.isEmpty())
+                break;
+            int d = 0;
+            while (!fits(bucket, d, bucketSlots))
+                if (++d >= MAX_DISPLACEMENT)
+                    return false;
+            displacements[b] = d;
+            for (int i = 0; i < bucket.size(); i++) {
+                final String name = bucket.get(i);
+                hashes[bucketSlots[i]] = Maths.hash64(name);
+                names[bucketSlots[i]] = name;
+                values[bucketSlots[i]] = map.get(name);
+            }
+        }
+        return true;
+    }
+
+    // whether every name in the bucket has a free slot of its own with this displacement
+    private boolean fits(List<String> bucket, int d, int[] bucketSlots) {
+        for (int i = 0; i < bucket.size(); i++) {
+            final int slot = slot(Maths.hash64(bucket.get(i)), d);
+            if (names[slot] != null)
+                return false;
+            for (int j = 0; j < i; j++)
+                if (bucketSlots[j] == slot)
+                    return false;
+            bucketSlots[i] = slot;
+        }
+        return true;
+    }
+
+    private int slot(long hash, int d) {
+        return (int) (((hash + d) * MULTIPLIER) >>> shift);
+    }
+
+    /**
+     * @return the number of names in the table
+     */
+    int size() {
+        return size;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    V get(@NotNull CharSequence name) {
+        final long hash = Maths.hash64(name);
+        final int slot = slot(hash, displacements[(int) hash & bucketMask]);
+        return hashes[slot] == hash && StringUtils.isEqual(names[slot], name) ? (V) values[slot] : null;
+    }
+
+    /**
+     * Looks up ISO-8859-1 text in native memory. Only 7-bit names hash the same way, so other names are not found.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    V get(long address, int length) {
+        final long hash = Maths.hash64(address, length);
+        final int slot = slot(hash, displacements[(int) hash & bucketMask]);
+        return hashes[slot] == hash && StringUtils.isEqual(names[slot], address, length) ? (V) values[slot] : null;
+    }
+}
@@ -18,18 +18,27 @@
 package net.openhft.chronicle.core.pool;
 
 import net.openhft.chronicle.core.util.CoreDynamicEnum;
+import net.openhft.chronicle.core.util.StringUtils;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 public class StaticEnumClass<E extends Enum<E> & CoreDynamicEnum<E>> extends EnumCache<E> {
     private final E[] values;
+    // null if the names couldn't be put in a table
+    private final PerfectHashTable<E> names;
 
     StaticEnumClass(Class<E> eClass) {
         super(eClass);
         this.values = eClass.getEnumConstants();
+        final Map<String, E> map = new HashMap<>();
+        for (E e : values)
+            map.put(e.name(), e);
+        this.names = PerfectHashTable.of(map);
     }
 
     @Override
@@ -37,6 +46,18 @@ public class StaticEnumClass<E extends Enum<E> & CoreDynamicEnum<E>> extends Enu
         return name == null || name.isEmpty() ? null : Enum.valueOf(type, name);
     }
 
+    @Override
+    E valueOf(@NotNull CharSequence name) {
+        final E e = names == null ? null : names.get(name);
+        return e != null ? e : valueOf(name.toString());
+    }
+
+    @Override
+    E valueOf(long address, int length) {
+        final E e = names == null ? null : names.get(address, length);
+        return e != null ? e : valueOf(StringUtils.newString(address, length));
+    }
+
     @Override
     public int size() {
         return values.length;
@@ -18,15 +18,111 @@
 
 package net.openhft.chronicle.core.pool;
 
+import net.openhft.chronicle.core.Jvm;
+
+import java.util.concurrent.atomic.LongAdder;
+
 import static java.lang.ThreadLocal.withInitial;
 
+/**
+ * <p>
+ * {@link #acquireStringBuilder()} returns the same StringBuilder for a thread each time, so it must not be used while an outer caller is still using it.
+ * It is replaced once it has grown beyond the maximum capacity.
+ * </p><p>
+ * {@link #acquire()} and {@link #release(StringBuilder)} use a small stack of StringBuilders per thread instead, so calls can be nested up to the depth of the stack.
+ * Beyond that a new StringBuilder is created and counted in {@link #fallbacks()}.
+ * On release, a StringBuilder which has grown beyond the maximum capacity is replaced so one large message doesn't pin a large buffer to the thread.
+ * The default maximum capacity is 65536 chars, set with {@code -DstringBuilderPool.maxCapacity}.
+ * </p>
+ */
 public class StringBuilderPool {
+    private static final int INITIAL_CAPACITY = 128;
+    static final int DEFAULT_MAX_CAPACITY = Math.max(INITIAL_CAPACITY, Jvm.getInteger("stringBuilderPool.maxCapacity", 1 << 16));
+
     private final ThreadLocal<StringBuilder> sbtl = withInitial(
-            () -> new StringBuilder(128));
+            () -> new StringBuilder(INITIAL_CAPACITY));
+    private final ThreadLocal<Stack> stackTL;
+    private final int maxCapacity;
+    private final LongAdder fallbacks = new LongAdder();
+
+    public StringBuilderPool() {
+        this(4, DEFAULT_MAX_CAPACITY);
+    }
+
+    /**
+     * @param depth       the number of StringBuilders a thread can hold at once from {@link #acquire()}
+     * @param maxCapacity the largest capacity retained on {@link #release(StringBuilder)}
+     */
+    public StringBuilderPool(int depth, int maxCapacity) {
+        if (depth < 1)
+            throw new IllegalArgumentException("depth " + depth + " must be at least 1");
+        if (maxCapacity < INITIAL_CAPACITY)
+            throw new IllegalArgumentException("maxCapacity " + maxCapacity + " must be at least " + INITIAL_CAPACITY);
+        this.maxCapacity = maxCapacity;
+        this.stackTL = withInitial(() -> new Stack(depth));
+    }
 
     public StringBuilder acquireStringBuilder() {
         StringBuilder sb = sbtl.get();
+        if (sb.capacity() > maxCapacity) {
+            sb = new StringBuilder(INITIAL_CAPACITY);
+            sbtl.set(sb);
+            return sb;
+        }
         sb.setLength(0);
         return sb;
     }
+
+    /**
+     * @return an empty StringBuilder which should be passed to {@link #release(StringBuilder)} when finished with
+     */
+    public StringBuilder acquire() {
+        final Stack stack = stackTL.get();
+        if (stack.size > 0) {
+            final StringBuilder sb = stack.builders[--stack.size];
+            stack.builders[stack.size] = null;
+            sb.setLength(0);
+            return sb;
+        }
+        if (stack.created < stack.builders.length)
+            stack.created++;
+        else
+            fallbacks.increment();
+        return new StringBuilder(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns a StringBuilder from {@link #acquire()} to this thread's stack, replacing it if it has grown beyond the maximum capacity.
+     * It is discarded if the stack is full.
+     *
+     * @throws IllegalStateException if it has already been released and not acquired since
+     */
+    public void release(StringBuilder sb) throws IllegalStateException {
+        final Stack stack = stackTL.get();
+        // otherwise two callers could acquire the same StringBuilder
+        for (int i = 0; i < stack.size; i++)
+            if (stack.builders[i] == sb)
+                throw new IllegalStateException("StringBuilder already released");
+        if (stack.size >= stack.builders.length)
+            return;
+        stack.builders[stack.size++] = sb.capacity() > maxCapacity ? new StringBuilder(INITIAL_CAPACITY) : sb;
+    }
+
+    /**
+     * @return the number of times {@link #acquire()} created a StringBuilder because the thread's stack was empty, not counting the first depth for each thread
+     */
+    public long fallbacks() {
+        return fallbacks.sum();
+    }
+
+    static final class Stack {
+        final StringBuilder[] builders;
+        int size;
+        // the number created to fill this stack
+        int created;
+
+        Stack(int depth) {
+            builders = new StringBuilder[depth];
+        }
+    }
 }
@@ -20,8 +20,10 @@ package net.openhft.chronicle.core.pool;
 
 import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.util.StringUtils;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -84,6 +86,61 @@ public class StringInterner {
         return s3;
     }
 
+    /**
+     * Interns ISO-8859-1 text in native memory, only creating a String if it is not already held.
+     * 7-bit text uses the same slots as {@link #intern(CharSequence)}.
+     *
+     * @param address of the text
+     * @param length  of the text in bytes
+     * @return the interned String
+     */
+    @NotNull
+    public String intern(long address, int length) {
+        if (length > interner.length)
+            return StringUtils.newString(address, length);
+        int hash = Maths.hash32(address, length);
+        int h = hash & mask;
+        String s = interner[h];
+        if (StringUtils.isEqual(s, address, length))
+            return s;
+        int h2 = (hash >> shift) & mask;
+        String s2 = interner[h2];
+        if (StringUtils.isEqual(s2, address, length))
+            return s2;
+        String s3 = StringUtils.newString(address, length);
+        interner[s == null || (s2 != null && toggle()) ? h : h2] = s3;
+
+        return s3;
+    }
+
+    /**
+     * Interns ISO-8859-1 text in a byte[], only creating a String if it is not already held.
+     * 7-bit text uses the same slots as {@link #intern(CharSequence)}.
+     *
+     * @param bytes  containing the text
+     * @param offset of the text
+     * @param length of the text
+     * @return the interned String
+     */
+    @NotNull
+    public String intern(@NotNull byte[] bytes, int offset, int length) {
+        if (length > interner.length)
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        int hash = Maths.hash32(bytes, offset, length);
+        int h = hash & mask;
+        String s = interner[h];
+        if (StringUtils.isEqual(s, bytes, offset, length))
+            return s;
+        int h2 = (hash >> shift) & mask;
+        String s2 = interner[h2];
+        if (StringUtils.isEqual(s2, bytes, offset, length))
+            return s2;
+        String s3 = new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        interner[s == null || (s2 != null && toggle()) ? h : h2] = s3;
+
+        return s3;
+    }
+
     /**
      * provide
      *
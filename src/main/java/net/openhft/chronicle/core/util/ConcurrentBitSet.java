@@ -0,0 +1,216 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.util;
+
+import net.openhft.chronicle.core.annotation.NonNegative;
+import net.openhft.chronicle.core.annotation.Positive;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/**
+ * A fixed size set of bits in native memory which any number of threads, or processes sharing the memory, can update.
+ * <p>
+ * Bits are stored in native order longs, so bit {@code i} is bit {@code i % 64} of the long at {@code address + i / 64 * 8}.
+ * Updates use {@link net.openhft.chronicle.core.Memory#getAndBitwiseOrLong(long, long)} and
+ * {@link net.openhft.chronicle.core.Memory#getAndBitwiseAndLong(long, long)}, and scans read a word at a time.
+ * <p>
+ * The memory is either allocated, and freed on close, or provided by the caller e.g. a region of a memory mapped file,
+ * which must be 8 byte aligned.
+ */
+public class ConcurrentBitSet extends AbstractCloseable {
+    private final long address;
+    private final long size;
+    private final long words;
+    private final boolean owned;
+
+    /**
+     * Allocates a bit set with all bits clear.
+     *
+     * @param size the number of bits
+     */
+    public ConcurrentBitSet(@Positive long size) {
+        this(0, size);
+    }
+
+    private ConcurrentBitSet(long address, long size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Invalid size: " + size);
+        this.size = size;
+        this.words = (size + 63) >>> 6;
+        this.owned = address == 0;
+        if (owned) {
+            address = MEMORY.allocate(words << 3);
+            MEMORY.setMemory(address, words << 3, (byte) 0);
+        } else if ((address & 7) != 0) {
+            throw new IllegalArgumentException("Address must be 8 byte aligned: " + Long.toHexString(address));
+        }
+        this.address = address;
+        singleThreadedCheckDisabled(true);
+    }
+
+    /**
+     * Uses memory provided by the caller, which is not freed on close.
+     *
+     * @param address of the first word, 8 byte aligned
+     * @param size    the number of bits
+     * @return a bit set over the memory
+     */
+    public static ConcurrentBitSet wrap(long address, @Positive long size) {
+        if (address == 0)
+            throw new IllegalArgumentException("Address is 0");
+        return new ConcurrentBitSet(address, size);
+    }
+
+    /**
+     * @param size the number of bits
+     * @return the number of bytes needed to hold them
+     */
+    public static long sizeInBytes(@NonNegative long size) {
+        return ((size + 63) >>> 6) << 3;
+    }
+
+    public long address() {
+        return address;
+    }
+
+    /**
+     * @return the number of bits
+     */
+    public long size() {
+        return size;
+    }
+
+    public boolean get(@NonNegative long index) {
+        checkIndex(index);
+        return (MEMORY.readVolatileLong(wordAddress(index)) & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets a bit.
+     *
+     * @return whether it was already set
+     */
+    public boolean set(@NonNegative long index) {
+        checkIndex(index);
+        final long mask = 1L << index;
+        return (MEMORY.getAndBitwiseOrLong(wordAddress(index), mask) & mask) != 0;
+    }
+
+    /**
+     * Clears a bit.
+     *
+     * @return whether it was set
+     */
+    public boolean clear(@NonNegative long index) {
+        checkIndex(index);
+        final long mask = 1L << index;
+        return (MEMORY.getAndBitwiseAndLong(wordAddress(index), ~mask) & mask) != 0;
+    }
+
+    /**
+     * Flips a bit.
+     *
+     * @return whether it was set
+     */
+    public boolean flip(@NonNegative long index) {
+        checkIndex(index);
+        final long mask = 1L << index;
+        return (MEMORY.getAndBitwiseXorLong(wordAddress(index), mask) & mask) != 0;
+    }
+
+    /**
+     * @param from the index to start from, inclusive
+     * @return the index of the first set bit at or after {@code from}, or -1 if there is none
+     */
+    public long nextSetBit(@NonNegative long from) {
+        if (from < 0)
+            throw new IndexOutOfBoundsException("from: " + from);
+        if (from >= size)
+            return -1;
+        long w = from >>> 6;
+        long word = MEMORY.readVolatileLong(address + (w << 3)) & (-1L << from);
+        for (; ; ) {
+            if (word != 0) {
+                final long index = (w << 6) + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            if (++w == words)
+                return -1;
+            word = MEMORY.readVolatileLong(address + (w << 3));
+        }
+    }
+
+    /**
+     * @param from the index to start from, inclusive
+     * @return the index of the first clear bit at or after {@code from}, or -1 if all the remaining bits are set
+     */
+    public long nextClearBit(@NonNegative long from) {
+        if (from < 0)
+            throw new IndexOutOfBoundsException("from: " + from);
+        if (from >= size)
+            return -1;
+        long w = from >>> 6;
+        long word = ~MEMORY.readVolatileLong(address + (w << 3)) & (-1L << from);
+        for (; ; ) {
+            if (word != 0) {
+                final long index = (w << 6) + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            if (++w == words)
+                return -1;
+            word = ~MEMORY.readVolatileLong(address + (w << 3));
+        }
+    }
+
+    /**
+     * @return the number of bits set, which may be inconsistent if bits are changed concurrently
+     */
+    public long cardinality() {
+        long count = 0;
+        for (long w = 0; w < words - 1; w++)
+            count += Long.bitCount(MEMORY.readVolatileLong(address + (w << 3)));
+        // ignore any bits past the end in memory provided by the caller
+        final long last = MEMORY.readVolatileLong(address + ((words - 1) << 3)) & (-1L >>> -size);
+        return count + Long.bitCount(last);
+    }
+
+    private long wordAddress(long index) {
+        return address + ((index >>> 6) << 3);
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+    }
+
+    @Override
+    protected void performClose() {
+        if (owned)
+            MEMORY.freeMemory(address, words << 3);
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentBitSet{" +
+                "size=" + size +
+                ", owned=" + owned +
+                '}';
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.util;
+
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.io.UnsafeText;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.RoundingMode;
+
+/**
+ * A mutable fixed-point decimal, {@code mantissa / 10^scale}, with a scale from 0 to {@link #MAX_SCALE}.
+ * <p>
+ * Arithmetic is exact, with any rounding to the requested scale done as {@link java.math.BigDecimal} would for the same {@link RoundingMode}.
+ * Intermediate products are kept to 128 bits so only a result which doesn't fit in a long overflows, and nothing creates garbage.
+ * Operations update this instance and return it so they can be chained, and an instance can be reused.
+ * <p>
+ * An {@link ArithmeticException} is thrown if a result doesn't fit in a long, on division by zero,
+ * or if rounding is needed with {@link RoundingMode#UNNECESSARY}.
+ */
+public final class Decimal64 implements Comparable<Decimal64> {
+    public static final int MAX_SCALE = 18;
+    private static final long TEN_18 = Maths.roundingFactor(18);
+
+    private long mantissa;
+    private int scale;
+
+    public Decimal64() {
+    }
+
+    public Decimal64(long mantissa, int scale) {
+        set(mantissa, scale);
+    }
+
+    public long mantissa() {
+        return mantissa;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    @NotNull
+    public Decimal64 set(long mantissa, int scale) {
+        this.mantissa = mantissa;
+        this.scale = checkScale(scale);
+        return this;
+    }
+
+    @NotNull
+    public Decimal64 set(@NotNull Decimal64 other) {
+        mantissa = other.mantissa;
+        scale = other.scale;
+        return this;
+    }
+
+    /**
+     * Sets this to the exact binary value of a double, rounded to a scale, as {@code new BigDecimal(d).setScale(scale, mode)} would.
+     * Use {@link Maths#roundN(double, int)} first if the double is only an approximation of a decimal at this scale.
+     *
+     * @throws IllegalArgumentException if d is NaN or infinite
+     */
+    @NotNull
+    public Decimal64 set(double d, int scale, @NotNull RoundingMode mode) {
+        checkScale(scale);
+        if (Double.isNaN(d) || Double.isInfinite(d))
+            throw new IllegalArgumentException("Not a finite value " + d);
+        final long bits = Double.doubleToRawLongBits(d);
+        final boolean negative = bits < 0;
+        final int biasedExp = (int) (bits >>> 52) & 0x7FF;
+        long significand = bits & ((1L << 52) - 1);
+        if (biasedExp != 0)
+            significand |= 1L << 52;
+        // d = significand * 2^exp
+        final int exp = (biasedExp == 0 ? 1 : biasedExp) - 1075;
+
+        final long factor = Maths.roundingFactor(scale);
+        final long lo = significand * factor;
+        final long hi = Maths.unsignedMultiplyHigh(significand, factor);
+        final long value;
+        if (significand == 0) {
+            value = 0;
+        } else if (exp >= 0) {
+            final int bitLength = hi != 0 ? 128 - Long.numberOfLeadingZeros(hi) : 64 - Long.numberOfLeadingZeros(lo);
+            if (bitLength + exp > 63)
+                throw overflow();
+            value = negative ? -(lo << exp) : lo << exp;
+        } else {
+            final int shift = -exp;
+            if (shift >= 128) {
+                // less than half of one unit
+                value = round(0, -1, true, negative, mode);
+            } else {
+                final long qHi = shift >= 64 ? 0 : hi >>> shift;
+                final long q = shift >= 64 ? hi >>> (shift - 64) : shift == 0 ? lo : lo >>> shift | hi << (64 - shift);
+                if (qHi != 0)
+                    throw overflow();
+                // the bits shifted out, compared with half
+                final boolean halfBit = bit(hi, lo, shift - 1);
+                final boolean lowerBits = anyBitsBelow(hi, lo, shift - 1);
+                final int half = halfBit ? (lowerBits ? 1 : 0) : -1;
+                value = round(q, half, halfBit || lowerBits, negative, mode);
+            }
+        }
+        this.mantissa = value;
+        this.scale = scale;
+        return this;
+    }
+
+    private static boolean bit(long hi, long lo, int index) {
+        return index >= 64 ? (hi >>> (index - 64) & 1) != 0 : (lo >>> index & 1) != 0;
+    }
+
+    private static boolean anyBitsBelow(long hi, long lo, int index) {
+        if (index >= 64)
+            return lo != 0 || (index > 64 && hi << (128 - index) != 0);
+        return index > 0 && lo << (64 - index) != 0;
+    }
+
+    /**
+     * @return the nearest double, using {@link Maths#asDouble(long, int, boolean, int)}
+     */
+    public double toDouble() {
+        if (mantissa == Long.MIN_VALUE)
+            return Long.MIN_VALUE / (double) Maths.roundingFactor(scale);
+        return Maths.asDouble(Math.abs(mantissa), 0, mantissa < 0, scale);
+    }
+
+    /**
+     * Changes the scale, rounding if it is reduced.
+     */
+    @NotNull
+    public Decimal64 setScale(int scale, @NotNull RoundingMode mode) {
+        checkScale(scale);
+        if (scale >= this.scale) {
+            mantissa = Math.multiplyExact(mantissa, Maths.roundingFactor(scale - this.scale));
+        } else {
+            final boolean negative = mantissa < 0;
+            mantissa = divideAndRound(0, negative ? -mantissa : mantissa, Maths.roundingFactor(this.scale - scale), false, negative, mode);
+        }
+        this.scale = scale;
+        return this;
+    }
+
+    /**
+     * Adds exactly, the scale becomes the larger of the two.
+     */
+    @NotNull
+    public Decimal64 add(@NotNull Decimal64 other) {
+        return add(other.mantissa, other.scale);
+    }
+
+    /**
+     * Subtracts exactly, the scale becomes the larger of the two.
+     */
+    @NotNull
+    public Decimal64 subtract(@NotNull Decimal64 other) {
+        if (other.mantissa == Long.MIN_VALUE)
+            throw overflow();
+        return add(-other.mantissa, other.scale);
+    }
+
+    private Decimal64 add(long otherMantissa, int otherScale) {
+        if (otherScale > scale) {
+            mantissa = Math.addExact(Math.multiplyExact(mantissa, Maths.roundingFactor(otherScale - scale)), otherMantissa);
+            scale = otherScale;
+        } else {
+            mantissa = Math.addExact(mantissa, Math.multiplyExact(otherMantissa, Maths.roundingFactor(scale - otherScale)));
+        }
+        return this;
+    }
+
+    /**
+     * Multiplies by other, rounding the exact product to a scale.
+     */
+    @NotNull
+    public Decimal64 multiply(@NotNull Decimal64 other, int scale, @NotNull RoundingMode mode) {
+        checkScale(scale);
+        final boolean negative = (mantissa < 0) != (other.mantissa < 0);
+        final long a = mantissa < 0 ? -mantissa : mantissa;
+        final long b = other.mantissa < 0 ? -other.mantissa : other.mantissa;
+        final long lo = a * b;
+        final long hi = Maths.unsignedMultiplyHigh(a, b);
+        final int diff = this.scale + other.scale - scale;
+        if (diff <= 0) {
+            if (hi != 0 || lo < 0)
+                throw overflow();
+            final long product = Math.multiplyExact(lo, Maths.roundingFactor(-diff));
+            mantissa = negative ? -product : product;
+        } else if (diff <= MAX_SCALE) {
+            mantissa = divideAndRound(hi, lo, Maths.roundingFactor(diff), false, negative, mode);
+        } else {
+            // divide in two steps, keeping whether anything was dropped by the first
+            final long d1 = Maths.roundingFactor(diff - MAX_SCALE);
+            final long qHi = Long.divideUnsigned(hi, d1);
+            final long qLo = divideUnsigned(Long.remainderUnsigned(hi, d1), lo, d1);
+            final boolean sticky = lo - qLo * d1 != 0;
+            mantissa = divideAndRound(qHi, qLo, TEN_18, sticky, negative, mode);
+        }
+        this.scale = scale;
+        return this;
+    }
+
+    /**
+     * Divides by other, rounding the exact quotient to a scale.
+     */
+    @NotNull
+    public Decimal64 divide(@NotNull Decimal64 other, int scale, @NotNull RoundingMode mode) {
+        checkScale(scale);
+        if (other.mantissa == 0)
+            throw new ArithmeticException("Division by zero");
+        final boolean negative = (mantissa < 0) != (other.mantissa < 0);
+        final long a = mantissa < 0 ? -mantissa : mantissa;
+        final long b = other.mantissa < 0 ? -other.mantissa : other.mantissa;
+        // the quotient is a * 10^k / b
+        final int k = scale + other.scale - this.scale;
+        if (k >= 0) {
+            final long f1 = Maths.roundingFactor(Math.min(k, MAX_SCALE));
+            long lo = a * f1;
+            long hi = Maths.unsignedMultiplyHigh(a, f1);
+            if (k > MAX_SCALE) {
+                final long f2 = Maths.roundingFactor(k - MAX_SCALE);
+                if (Maths.unsignedMultiplyHigh(hi, f2) != 0)
+                    throw overflow();
+                final long carry = Maths.unsignedMultiplyHigh(lo, f2);
+                final long hi2 = hi * f2;
+                if (Long.compareUnsigned(hi2 + carry, hi2) < 0)
+                    throw overflow();
+                hi = hi2 + carry;
+                lo *= f2;
+            }
+            mantissa = divideAndRound(hi, lo, b, false, negative, mode);
+        } else {
+            final long f = Maths.roundingFactor(-k);
+            if (Maths.unsignedMultiplyHigh(b, f) != 0) {
+                // the divisor is at least 2^64 so the quotient is less than half
+                mantissa = round(0, -1, a != 0, negative, mode);
+            } else {
+                mantissa = divideAndRound(0, a, b * f, false, negative, mode);
+            }
+        }
+        this.scale = scale;
+        return this;
+    }
+
+    // the unsigned (hi, lo) / divisor rounded, where sticky means something non-zero was already dropped below the remainder
+    private static long divideAndRound(long hi, long lo, long divisor, boolean sticky, boolean negative, RoundingMode mode) {
+        if (Long.compareUnsigned(hi, divisor) >= 0)
+            throw overflow();
+        final long q = divideUnsigned(hi, lo, divisor);
+        final long r = lo - q * divisor;
+        final int half;
+        if (r == 0) {
+            half = -1;
+        } else {
+            final int cmp = Long.compareUnsigned(r, divisor - r);
+            half = cmp != 0 ? cmp : sticky ? 1 : 0;
+        }
+        return round(q, half, r != 0 || sticky, negative, mode);
+    }
+
+    /**
+     * @param q        the unsigned magnitude rounded towards zero
+     * @param half     whether the part dropped is less than, equal to or more than half, as -1, 0 or +1
+     * @param inexact  whether anything was dropped
+     * @param negative the sign of the result
+     */
+    private static long round(long q, int half, boolean inexact, boolean negative, RoundingMode mode) {
+        if (inexact) {
+            final boolean up;
+            switch (mode) {
+                case UP:
+                    up = true;
+                    break;
+                case DOWN:
+                    up = false;
+                    break;
+                case CEILING:
+                    up = !negative;
+                    break;
+                case FLOOR:
+                    up = negative;
+                    break;
+                case HALF_UP:
+                    up = half >= 0;
+                    break;
+                case HALF_DOWN:
+                    up = half > 0;
+                    break;
+                case HALF_EVEN:
+                    up = half > 0 || (half == 0 && (q & 1) != 0);
+                    break;
+                default:
+                    throw new ArithmeticException("Rounding necessary");
+            }
+            if (up)
+                q++;
+        }
+        if (Long.compareUnsigned(q, negative ? Long.MIN_VALUE : Long.MAX_VALUE) > 0)
+            throw overflow();
+        return negative ? -q : q;
+    }
+
+    // (hi, lo) / divisor as unsigned values, where hi < divisor so the quotient fits in 64 bits
+    private static long divideUnsigned(long hi, long lo, long divisor) {
+        if (hi == 0)
+            return Long.divideUnsigned(lo, divisor);
+        long q = 0;
+        for (int i = 0; i < 64; i++) {
+            final boolean carry = hi < 0;
+            hi = hi << 1 | lo >>> 63;
+            lo <<= 1;
+            q <<= 1;
+            if (carry || Long.compareUnsigned(hi, divisor) >= 0) {
+                hi -= divisor;
+                q |= 1;
+            }
+        }
+        return q;
+    }
+
+    /**
+     * Writes this as plain text, e.g. {@code -12.50} for a mantissa of -1250 and a scale of 2.
+     *
+     * @param address to start writing
+     * @return endOfAddress
+     */
+    public long appendTo(long address) {
+        if (mantissa == Long.MIN_VALUE)
+            throw new IllegalStateException("Long.MIN_VALUE cannot be appended");
+        return UnsafeText.appendBase10d(address, mantissa, scale);
+    }
+
+    @Override
+    public int compareTo(@NotNull Decimal64 other) {
+        if ((mantissa < 0) != (other.mantissa < 0))
+            return mantissa < 0 ? -1 : 1;
+        final boolean negative = mantissa < 0;
+        final int maxScale = Math.max(scale, other.scale);
+        final long a = negative ? -mantissa : mantissa;
+        final long b = negative ? -other.mantissa : other.mantissa;
+        final long fa = Maths.roundingFactor(maxScale - scale);
+        final long fb = Maths.roundingFactor(maxScale - other.scale);
+        int cmp = Long.compareUnsigned(Maths.unsignedMultiplyHigh(a, fa), Maths.unsignedMultiplyHigh(b, fb));
+        if (cmp == 0)
+            cmp = Long.compareUnsigned(a * fa, b * fb);
+        return negative ? -cmp : cmp;
+    }
+
+    /**
+     * Equal if the values are the same, regardless of scale, consistent with {@link #compareTo(Decimal64)}.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Decimal64 && compareTo((Decimal64) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        long m = mantissa;
+        int s = scale;
+        while (s > 0 && m % 10 == 0) {
+            m /= 10;
+            s--;
+        }
+        return Maths.hash32(m) * 31 + s;
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(21);
+        sb.append(mantissa);
+        if (scale > 0) {
+            final int digitsStart = mantissa < 0 ? 1 : 0;
+            while (sb.length() - digitsStart <= scale)
+                sb.insert(digitsStart, '0');
+            sb.insert(sb.length() - scale, '.');
+        }
+        return sb.toString();
+    }
+
+    private static int checkScale(int scale) {
+        if (scale < 0 || scale > MAX_SCALE)
+            throw new IllegalArgumentException("scale " + scale + " must be between 0 and " + MAX_SCALE);
+        return scale;
+    }
+
+    private static ArithmeticException overflow() {
+        return new ArithmeticException("Decimal64 overflow");
+    }
+}
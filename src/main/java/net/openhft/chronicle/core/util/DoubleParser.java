@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.util;
+
+import net.openhft.chronicle.core.Maths;
+
+import java.math.BigInteger;
+
+/**
+ * Converts a decimal significand and exponent to the nearest double, using Clinger's fast path for small exponents
+ * and the Eisel-Lemire algorithm otherwise.
+ * <p>
+ * See Daniel Lemire, "Number Parsing at a Gigabyte per Second", Software: Practice and Experience 51 (8), 2021.
+ */
+final class DoubleParser {
+    static final int SMALLEST_POWER = -342;
+    static final int LARGEST_POWER = 308;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    // the high and low 64 bits of 10^q, normalised so the top bit is set, for q from SMALLEST_POWER to LARGEST_POWER
+    private static final long[] MANTISSA_HIGH = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+    private static final long[] MANTISSA_LOW = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+
+    static {
+        final BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        final BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+            BigInteger c;
+            if (q < 0) {
+                // the reciprocal of 5^-q rounded up, truncated to 128 bits
+                final BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                final int z = power5.subtract(BigInteger.ONE).bitLength();
+                final int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0)
+                    c = c.shiftRight(1);
+            } else {
+                // 5^q with the top bit moved to bit 127, truncated
+                c = BigInteger.valueOf(5).pow(q);
+                final int shift = 128 - c.bitLength();
+                c = shift >= 0 ? c.shiftLeft(shift) : c.shiftRight(-shift);
+            }
+            MANTISSA_HIGH[q - SMALLEST_POWER] = c.shiftRight(64).longValue();
+            MANTISSA_LOW[q - SMALLEST_POWER] = c.and(mask64).longValue();
+        }
+    }
+
+    // Suppresses default constructor, ensuring non-instantiability.
+    private DoubleParser() {
+    }
+
+    /**
+     * @param negative whether the value is negative
+     * @param digits   the decimal significand, treated as unsigned
+     * @param exp10    the power of ten to multiply it by
+     * @return the nearest double, or NaN if it couldn't be determined and a slower exact parser is needed
+     */
+    static double toDouble(boolean negative, long digits, int exp10) {
+        if (digits == 0 || exp10 < SMALLEST_POWER)
+            return negative ? -0.0 : 0.0;
+        if (exp10 > LARGEST_POWER)
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        if (-22 <= exp10 && exp10 <= 22 && digits >= 0 && digits <= 1L << 53) {
+            // both the significand and the power of ten are exact doubles so one operation is correctly rounded
+            double d = digits;
+            d = exp10 < 0 ? d / POWERS_OF_TEN[-exp10] : d * POWERS_OF_TEN[exp10];
+            return negative ? -d : d;
+        }
+        final int index = exp10 - SMALLEST_POWER;
+        final long factorMantissa = MANTISSA_HIGH[index];
+        final long exponent = (((152170L + 65536L) * exp10) >> 16) + 1024 + 63;
+        int lz = Long.numberOfLeadingZeros(digits);
+        final long shifted = digits << lz;
+        long lower = shifted * factorMantissa;
+        long upper = Maths.unsignedMultiplyHigh(shifted, factorMantissa);
+        if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + shifted, lower) < 0) {
+            // the error of the 64-bit product could change the result, use the 128-bit product
+            final long factorMantissaLow = MANTISSA_LOW[index];
+            final long productLow = shifted * factorMantissaLow;
+            final long productMiddle2 = Maths.unsignedMultiplyHigh(shifted, factorMantissaLow);
+            final long productMiddle = lower + productMiddle2;
+            long productHigh = upper;
+            if (Long.compareUnsigned(productMiddle, lower) < 0)
+                productHigh++;
+            if (productMiddle + 1 == 0 && (productHigh & 0x1FF) == 0x1FF && Long.compareUnsigned(productLow + shifted, productLow) < 0)
+                return Double.NaN;
+            upper = productHigh;
+            lower = productMiddle;
+        }
+        final long upperBit = upper >>> 63;
+        long mantissa = upper >>> (upperBit + 9);
+        lz += (int) (1 ^ upperBit);
+        // exactly half way between two doubles, round half even needs the exact value
+        if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1)
+            return Double.NaN;
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 1L << 53) {
+            mantissa = 1L << 52;
+            lz--;
+        }
+        mantissa &= ~(1L << 52);
+        final long realExponent = exponent - lz;
+        // subnormal or overflow
+        if (realExponent < 1 || realExponent > 2046)
+            return Double.NaN;
+        return Double.longBitsToDouble(mantissa | realExponent << 52 | (negative ? 1L << 63 : 0L));
+    }
+}
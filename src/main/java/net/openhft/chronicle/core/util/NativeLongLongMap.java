@@ -0,0 +1,493 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.util;
+
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.io.AbstractCloseable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+
+/**
+ * A primitive long to long hash map using linear probing over a block of native memory, so it doesn't box or create garbage.
+ * <p>
+ * By default a single thread may modify the map while any number of threads read it without locking.
+ * Values are published with {@code writeOrderedLong} and read with {@code readVolatileLong}.
+ * When the map becomes half full it doubles in size, and a few entries are moved to the new table on each modification
+ * rather than all at once. A table which has been replaced is freed by a later modification once no reader which started before it was replaced
+ * is still running, otherwise when the map is closed. To know this, each reader counts itself in one of a few padded counters chosen by thread id.
+ * <p>
+ * With {@code concurrentPuts} any number of threads may put and remove using {@code compareAndSwapLong}.
+ * In this mode the capacity is fixed and removed keys keep their slot.
+ * <p>
+ * {@code missingValue} is returned when a key is not present, so it can't be used as a value.
+ */
+public class NativeLongLongMap extends AbstractCloseable {
+    static final int ENTRY_SHIFT = 4;
+    static final int MIGRATE_PER_MODIFICATION = 4;
+    // how often modifications try to free replaced tables, a power of 2
+    static final int FREE_RETIRED_INTERVAL = 64;
+    // reader counters for each parity of readerEpoch, one cache line apart
+    private static final int READER_STRIPES = 16;
+    private static final int PADDING_SHIFT = 3;
+    private static final long VALUE = 8;
+
+    private final long missingValue;
+    private final boolean concurrentPuts;
+    private final AtomicLong zeroKeyValue;
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong claimed = new AtomicLong();
+    private final List<Table> retired = new ArrayList<>();
+    private final AtomicLongArray readers = new AtomicLongArray((2 * READER_STRIPES) << PADDING_SHIFT);
+    // a table unlinked in one epoch can be freed once no readers from that epoch or before remain.
+    private volatile long readerEpoch = 0;
+    // odd while a structural change is in progress.
+    private volatile long modCount = 0;
+    private volatile Table table;
+    private volatile Table oldTable;
+    private long migrateIndex;
+    // only used by the single writer
+    private boolean hasRetired;
+    private int modifications;
+
+    public NativeLongLongMap(long expectedSize, long missingValue) {
+        this(expectedSize, missingValue, false);
+    }
+
+    /**
+     * @param expectedSize   the number of entries to size the table for, the table resizes beyond this unless concurrentPuts
+     * @param missingValue   the value returned for missing keys
+     * @param concurrentPuts whether multiple threads can put and remove concurrently
+     */
+    public NativeLongLongMap(long expectedSize, long missingValue, boolean concurrentPuts) {
+        this.missingValue = missingValue;
+        this.concurrentPuts = concurrentPuts;
+        this.zeroKeyValue = new AtomicLong(missingValue);
+        table = newTable(Maths.nextPower2(Math.max(expectedSize, 1) * 2, 16));
+        singleThreadedCheckDisabled(true);
+    }
+
+    private Table newTable(long capacity) {
+        final long size = capacity << ENTRY_SHIFT;
+        final long address = MEMORY.allocate(size);
+        MEMORY.setMemory(address, size, (byte) 0);
+        if (missingValue != 0)
+            for (long i = 0; i < capacity; i++)
+                MEMORY.writeLong(address + (i << ENTRY_SHIFT) + VALUE, missingValue);
+        return new Table(address, capacity - 1);
+    }
+
+    static long hash(long key) {
+        return Maths.hash64(key);
+    }
+
+    public long missingValue() {
+        return missingValue;
+    }
+
+    public boolean concurrentPuts() {
+        return concurrentPuts;
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return the number of slots in the current table.
+     */
+    public long capacity() {
+        return table.mask + 1;
+    }
+
+    /**
+     * @return whether entries are still being moved from a previous table.
+     */
+    public boolean isResizing() {
+        return oldTable != null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != missingValue;
+    }
+
+    /**
+     * @param key to look up
+     * @return the value for this key, or {@code missingValue} if not present.
+     */
+    public long get(long key) {
+        throwExceptionIfClosed();
+        if (key == 0)
+            return zeroKeyValue.get();
+        final long hash = hash(key);
+        // with concurrentPuts the table is never replaced
+        final int readerIndex = concurrentPuts ? -1 : enterReader();
+        try {
+            while (true) {
+                final long mc = modCount;
+                if ((mc & 1) != 0)
+                    continue;
+                final Table t = table;
+                final Table o = oldTable;
+                long value = get0(t, key, hash);
+                if (value == missingValue && o != null)
+                    value = get0(o, key, hash);
+                MEMORY.loadFence();
+                if (modCount == mc)
+                    return value;
+            }
+        } finally {
+            if (readerIndex >= 0)
+                readers.decrementAndGet(readerIndex);
+        }
+    }
+
+    // counts this reader in the current epoch, returning the counter to decrement when finished
+    private int enterReader() {
+        final int stripe = (int) Thread.currentThread().getId() & (READER_STRIPES - 1);
+        while (true) {
+            final long epoch = readerEpoch;
+            final int index = ((int) (epoch & 1) * READER_STRIPES + stripe) << PADDING_SHIFT;
+            readers.incrementAndGet(index);
+            if (readerEpoch == epoch)
+                return index;
+            readers.decrementAndGet(index);
+        }
+    }
+
+    private boolean noReaders(long epoch) {
+        final int base = (int) (epoch & 1) * READER_STRIPES;
+        for (int i = 0; i < READER_STRIPES; i++)
+            if (readers.get((base + i) << PADDING_SHIFT) != 0)
+                return false;
+        return true;
+    }
+
+    // frees the tables unlinked before the current epoch if no reader from an earlier epoch remains, then starts a new epoch
+    private void tryFreeRetired() {
+        final long epoch = readerEpoch;
+        if (!noReaders(epoch - 1))
+            return;
+        synchronized (retired) {
+            retired.removeIf(t -> {
+                if (t.retiredEpoch >= epoch)
+                    return false;
+                free(t);
+                return true;
+            });
+            hasRetired = !retired.isEmpty();
+        }
+        readerEpoch = epoch + 1;
+    }
+
+    private long get0(Table t, long key, long hash) {
+        for (long index = hash & t.mask; ; index = (index + 1) & t.mask) {
+            final long entry = t.address + (index << ENTRY_SHIFT);
+            final long k = MEMORY.readVolatileLong(entry);
+            if (k == key)
+                return MEMORY.readVolatileLong(entry + VALUE);
+            if (k == 0)
+                return missingValue;
+        }
+    }
+
+    /**
+     * @param key   to set
+     * @param value to associate with the key
+     * @return the previous value or {@code missingValue} if there wasn't one.
+     * @throws IllegalArgumentException if the value is the missingValue
+     * @throws IllegalStateException    if full in concurrentPuts mode
+     */
+    public long put(long key, long value) throws IllegalArgumentException, IllegalStateException {
+        if (value == missingValue)
+            throw new IllegalArgumentException("Cannot put the missingValue " + missingValue);
+        throwExceptionIfClosed();
+        if (key == 0) {
+            final long prev = zeroKeyValue.getAndSet(value);
+            if (prev == missingValue)
+                size.incrementAndGet();
+            return prev;
+        }
+        return concurrentPuts
+                ? putConcurrent(key, value)
+                : putSingleWriter(key, value);
+    }
+
+    /**
+     * @param key to remove
+     * @return the previous value or {@code missingValue} if there wasn't one.
+     */
+    public long remove(long key) {
+        throwExceptionIfClosed();
+        final long prev;
+        if (key == 0)
+            prev = zeroKeyValue.getAndSet(missingValue);
+        else if (concurrentPuts)
+            prev = removeConcurrent(key);
+        else
+            prev = removeSingleWriter(key);
+        if (prev != missingValue)
+            size.decrementAndGet();
+        return prev;
+    }
+
+    private long putSingleWriter(long key, long value) {
+        migrate();
+        final long hash = hash(key);
+        final Table t = table;
+        long index = hash & t.mask;
+        long entry;
+        for (; ; index = (index + 1) & t.mask) {
+            entry = t.address + (index << ENTRY_SHIFT);
+            final long k = MEMORY.readLong(entry);
+            if (k == key) {
+                final long prev = MEMORY.readLong(entry + VALUE);
+                MEMORY.writeOrderedLong(entry + VALUE, value);
+                return prev;
+            }
+            if (k == 0)
+                break;
+        }
+        long prev = missingValue;
+        final Table o = oldTable;
+        if (o != null) {
+            // keep the old table consistent for readers which look there after missing the new one.
+            final long oldEntry = find(o, key, hash);
+            if (oldEntry != 0) {
+                prev = MEMORY.readLong(oldEntry + VALUE);
+                if (prev != missingValue)
+                    MEMORY.writeOrderedLong(oldEntry + VALUE, value);
+            }
+        }
+        MEMORY.writeLong(entry + VALUE, value);
+        MEMORY.writeOrderedLong(entry, key);
+        if (prev == missingValue && size.incrementAndGet() > (t.mask + 1) / 2)
+            startResize();
+        return prev;
+    }
+
+    private long removeSingleWriter(long key) {
+        migrate();
+        final long hash = hash(key);
+        long prev = missingValue;
+        modCount++;
+        try {
+            final Table o = oldTable;
+            if (o != null) {
+                final long oldEntry = find(o, key, hash);
+                if (oldEntry != 0) {
+                    // leave the key so the probe sequence is unbroken.
+                    prev = MEMORY.readLong(oldEntry + VALUE);
+                    MEMORY.writeOrderedLong(oldEntry + VALUE, missingValue);
+                }
+            }
+            final Table t = table;
+            final long entry = find(t, key, hash);
+            if (entry != 0) {
+                prev = MEMORY.readLong(entry + VALUE);
+                deleteAt(t, (entry - t.address) >>> ENTRY_SHIFT);
+            }
+        } finally {
+            modCount++;
+        }
+        return prev;
+    }
+
+    private long find(Table t, long key, long hash) {
+        for (long index = hash & t.mask; ; index = (index + 1) & t.mask) {
+            final long entry = t.address + (index << ENTRY_SHIFT);
+            final long k = MEMORY.readLong(entry);
+            if (k == key)
+                return entry;
+            if (k == 0)
+                return 0;
+        }
+    }
+
+    // backward shift deletion, must be called while modCount is odd.
+    private void deleteAt(Table t, long gap) {
+        final long mask = t.mask;
+        for (long index = (gap + 1) & mask; ; index = (index + 1) & mask) {
+            final long entry = t.address + (index << ENTRY_SHIFT);
+            final long k = MEMORY.readLong(entry);
+            if (k == 0)
+                break;
+            final long home = hash(k) & mask;
+            // move the entry if its home is not cyclically within (gap, index]
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                final long gapEntry = t.address + (gap << ENTRY_SHIFT);
+                MEMORY.writeLong(gapEntry + VALUE, MEMORY.readLong(entry + VALUE));
+                MEMORY.writeLong(gapEntry, k);
+                gap = index;
+            }
+        }
+        final long gapEntry = t.address + (gap << ENTRY_SHIFT);
+        MEMORY.writeLong(gapEntry, 0);
+        MEMORY.writeOrderedLong(gapEntry + VALUE, missingValue);
+    }
+
+    private void startResize() {
+        if (oldTable != null)
+            migrate(Long.MAX_VALUE);
+        tryFreeRetired();
+        final Table t = table;
+        final Table newTable = newTable((t.mask + 1) * 2);
+        modCount++;
+        try {
+            // readers read table before oldTable, so oldTable must be set first.
+            oldTable = t;
+            table = newTable;
+            migrateIndex = 0;
+        } finally {
+            modCount++;
+        }
+    }
+
+    private void migrate() {
+        if (oldTable != null)
+            migrate(MIGRATE_PER_MODIFICATION);
+        else if (hasRetired && (++modifications & (FREE_RETIRED_INTERVAL - 1)) == 0)
+            tryFreeRetired();
+    }
+
+    private void migrate(long slots) {
+        final Table o = oldTable;
+        final Table t = table;
+        for (; slots > 0 && migrateIndex <= o.mask; slots--, migrateIndex++) {
+            final long oldEntry = o.address + (migrateIndex << ENTRY_SHIFT);
+            final long k = MEMORY.readLong(oldEntry);
+            if (k == 0)
+                continue;
+            final long value = MEMORY.readLong(oldEntry + VALUE);
+            if (value == missingValue)
+                continue;
+            final long hash = hash(k);
+            for (long index = hash & t.mask; ; index = (index + 1) & t.mask) {
+                final long entry = t.address + (index << ENTRY_SHIFT);
+                final long k2 = MEMORY.readLong(entry);
+                if (k2 == k)
+                    break;
+                if (k2 == 0) {
+                    MEMORY.writeLong(entry + VALUE, value);
+                    MEMORY.writeOrderedLong(entry, k);
+                    break;
+                }
+            }
+        }
+        if (migrateIndex > o.mask) {
+            oldTable = null;
+            // readers which start after this can't see o
+            o.retiredEpoch = readerEpoch;
+            synchronized (retired) {
+                retired.add(o);
+                hasRetired = true;
+            }
+            tryFreeRetired();
+        }
+    }
+
+    private long putConcurrent(long key, long value) {
+        final Table t = table;
+        for (long index = hash(key) & t.mask; ; index = (index + 1) & t.mask) {
+            final long entry = t.address + (index << ENTRY_SHIFT);
+            long k = MEMORY.readVolatileLong(entry);
+            if (k == 0) {
+                if (claimed.get() >= t.mask - (t.mask >>> 2))
+                    throw new IllegalStateException("Map is full, capacity: " + (t.mask + 1));
+                if (MEMORY.compareAndSwapLong(entry, 0, key)) {
+                    claimed.incrementAndGet();
+                    k = key;
+                } else {
+                    k = MEMORY.readVolatileLong(entry);
+                }
+            }
+            if (k == key) {
+                long prev;
+                do {
+                    prev = MEMORY.readVolatileLong(entry + VALUE);
+                } while (!MEMORY.compareAndSwapLong(entry + VALUE, prev, value));
+                if (prev == missingValue)
+                    size.incrementAndGet();
+                return prev;
+            }
+        }
+    }
+
+    private long removeConcurrent(long key) {
+        final Table t = table;
+        for (long index = hash(key) & t.mask; ; index = (index + 1) & t.mask) {
+            final long entry = t.address + (index << ENTRY_SHIFT);
+            final long k = MEMORY.readVolatileLong(entry);
+            if (k == 0)
+                return missingValue;
+            if (k == key) {
+                long prev;
+                do {
+                    prev = MEMORY.readVolatileLong(entry + VALUE);
+                } while (prev != missingValue && !MEMORY.compareAndSwapLong(entry + VALUE, prev, missingValue));
+                return prev;
+            }
+        }
+    }
+
+    @Override
+    protected void performClose() {
+        free(table);
+        final Table o = oldTable;
+        if (o != null)
+            free(o);
+        synchronized (retired) {
+            for (Table t : retired)
+                free(t);
+            retired.clear();
+        }
+    }
+
+    private static void free(Table t) {
+        MEMORY.freeMemory(t.address, (t.mask + 1) << ENTRY_SHIFT);
+    }
+
+    @Override
+    public String toString() {
+        return "NativeLongLongMap{" +
+                "size=" + size() +
+                ", capacity=" + capacity() +
+                ", concurrentPuts=" + concurrentPuts +
+                '}';
+    }
+
+    static final class Table {
+        final long address;
+        final long mask;
+        long retiredEpoch;
+
+        Table(long address, long mask) {
+            this.address = address;
+            this.mask = mask;
+        }
+    }
+}
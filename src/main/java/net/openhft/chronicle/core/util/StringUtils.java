@@ -19,15 +19,18 @@
 package net.openhft.chronicle.core.util;
 
 import net.openhft.chronicle.core.Jvm;
-import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.OS;
 import net.openhft.chronicle.core.annotation.Java9;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import sun.misc.Unsafe;
 
 import java.lang.reflect.Field;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 
 import static java.lang.Character.toLowerCase;
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
 
 public final class StringUtils {
 
@@ -47,7 +50,7 @@ public final class StringUtils {
     private static final long SB_VALUE_OFFSET;
     private static final long SB_COUNT_OFFSET;
     private static final long S_COUNT_OFFSET;
-    private static final long MAX_VALUE_DIVIDE_10 = Long.MAX_VALUE / 10;
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
 
     static {
         try {
@@ -195,6 +198,57 @@ public final class StringUtils {
         }
     }
 
+    /**
+     * Compares a String with ISO-8859-1 text in native memory without creating a String.
+     *
+     * @param s       to compare, may be null
+     * @param address of the text
+     * @param length  of the text in bytes
+     * @return true if s has the same characters
+     */
+    public static boolean isEqual(@Nullable String s, long address, int length) {
+        return isEqual0(s, null, address, length);
+    }
+
+    /**
+     * Compares a String with ISO-8859-1 text in a byte[] without creating a String.
+     *
+     * @param s      to compare, may be null
+     * @param bytes  containing the text
+     * @param offset of the text
+     * @param length of the text
+     * @return true if s has the same characters
+     */
+    public static boolean isEqual(@Nullable String s, @NotNull byte[] bytes, int offset, int length) {
+        return isEqual0(s, bytes, (long) Unsafe.ARRAY_BYTE_BASE_OFFSET + offset, length);
+    }
+
+    private static boolean isEqual0(@Nullable String s, @Nullable Object object, long offset, int length) {
+        if (s == null || s.length() != length)
+            return false;
+        // a compact String holds its Latin-1 bytes so they can be compared directly
+        if (Jvm.isJava9Plus() && getStringCoder(s) == 0)
+            return MEMORY.compare(extractBytes(s), Unsafe.ARRAY_BYTE_BASE_OFFSET, object, offset, length) == 0;
+        for (int i = 0; i < length; i++)
+            if (s.charAt(i) != charAt(null, object, offset, i))
+                return false;
+        return true;
+    }
+
+    /**
+     * Creates a String from ISO-8859-1 text in native memory.
+     *
+     * @param address of the text
+     * @param length  of the text in bytes
+     * @return a new String
+     */
+    @NotNull
+    public static String newString(long address, int length) {
+        final byte[] bytes = new byte[length];
+        MEMORY.copyMemory(address, bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET, length);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
     public static boolean equalsCaseIgnore(@Nullable CharSequence s, @NotNull CharSequence cs) {
         if (s == null) return false;
         if (s.length() != cs.length()) return false;
@@ -306,58 +360,159 @@ public final class StringUtils {
         return ch == c2 ? str : c2 + str.substring(1);
     }
 
+    /**
+     * Parses a double from the start of {@code in}, stopping at the first character which can't be part of the number.
+     * <p>
+     * The result is the nearest double to the decimal text, the same as {@link Double#parseDouble(String)} would return.
+     * Most values are converted without creating garbage, only those with more than 19 significant digits,
+     * or which are too close to half way between two doubles to round with 128-bit precision,
+     * fall back to {@link Double#parseDouble(String)}.
+     *
+     * @param in text to parse
+     * @return the value parsed, or 0.0 if there are no digits
+     */
     public static double parseDouble(@NotNull CharSequence in) {
-        long value = 0;
-        int exp = 0;
+        return parseDouble0(in, null, 0, in.length());
+    }
+
+    /**
+     * Parses a double from ISO-8859-1 text in native memory, as {@link #parseDouble(CharSequence)} does.
+     *
+     * @param address of the text
+     * @param length  of the text in bytes
+     * @return the value parsed, or 0.0 if there are no digits
+     */
+    public static double parseDouble(long address, int length) {
+        return parseDouble0(null, null, address, length);
+    }
+
+    /**
+     * Parses a double from ISO-8859-1 text in a byte[], as {@link #parseDouble(CharSequence)} does.
+     *
+     * @param bytes  containing the text
+     * @param offset of the text
+     * @param length of the text
+     * @return the value parsed, or 0.0 if there are no digits
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+    public static double parseDouble(@NotNull byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", array length: " + bytes.length);
+        return parseDouble0(null, bytes, (long) Unsafe.ARRAY_BYTE_BASE_OFFSET + offset, length);
+    }
+
+    // reads from the CharSequence if there is one, otherwise the bytes at object + offset
+    private static int charAt(@Nullable CharSequence cs, @Nullable Object object, long offset, int i) {
+        return cs != null ? cs.charAt(i) : MEMORY.readByte(object, offset + i) & 0xFF;
+    }
+
+    private static double parseDouble0(@Nullable CharSequence cs, @Nullable Object object, long offset, int length) {
+        int pos = 0;
         boolean negative = false;
-        int decimalPlaces = Integer.MIN_VALUE;
-
-        int ch = charAt(in, 0);
-        int pos = 1;
-        switch (ch) {
-            case 'N':
-                if (compareRest(in, 1, "aN"))
-                    return Double.NaN;
+        if (length > 0) {
+            final int ch = charAt(cs, object, offset, 0);
+            if (ch == '-' || ch == '+') {
+                negative = ch == '-';
+                pos++;
+            }
+        }
+        if (pos < length) {
+            final int ch = charAt(cs, object, offset, pos);
+            if (ch == 'N')
                 return Double.NaN;
-            case 'I':
+            if (ch == 'I') {
                 //noinspection SpellCheckingInspection
-                if (compareRest(in, 1, "nfinity"))
-                    return Double.POSITIVE_INFINITY;
-
-                return Double.NaN;
-            case '-':
-                if (compareRest(in, 1, "Infinity"))
-                    return Double.NEGATIVE_INFINITY;
-                negative = true;
-                ch = charAt(in, pos++);
-                break;
-            default:
-                // Continue below
+                if (!matches(cs, object, offset, length, pos, "Infinity"))
+                    return Double.NaN;
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            }
         }
-        while (true) {
+
+        // up to 19 significant digits fit in an unsigned long, any more are dropped and only move the exponent
+        long digits = 0;
+        int significant = 0;
+        int exp10 = 0;
+        boolean seenDigit = false;
+        boolean seenDot = false;
+        boolean truncated = false;
+        for (; pos < length; pos++) {
+            final int ch = charAt(cs, object, offset, pos);
             if (ch >= '0' && ch <= '9') {
-                while (value >= MAX_VALUE_DIVIDE_10) {
-                    value >>>= 1;
-                    exp++;
+                seenDigit = true;
+                if (significant < 19) {
+                    digits = digits * 10 + (ch - '0');
+                    if (digits != 0)
+                        significant++;
+                    if (seenDot)
+                        exp10--;
+                } else {
+                    truncated |= ch != '0';
+                    if (!seenDot)
+                        exp10++;
                 }
-                value = value * 10 + (ch - '0');
-                decimalPlaces++;
-
-            } else if (ch == '.') {
-                decimalPlaces = 0;
-
+            } else if (ch == '.' && !seenDot) {
+                seenDot = true;
             } else {
                 break;
             }
-            if (pos == in.length())
-                break;
-            ch = charAt(in, pos++);
         }
+        if (!seenDigit)
+            return negative ? -0.0 : 0.0;
+
+        int end = pos;
+        if (pos < length && (charAt(cs, object, offset, pos) | 0x20) == 'e') {
+            int p = pos + 1;
+            boolean expNegative = false;
+            if (p < length) {
+                final int ch = charAt(cs, object, offset, p);
+                if (ch == '-' || ch == '+') {
+                    expNegative = ch == '-';
+                    p++;
+                }
+            }
+            final int expStart = p;
+            int exp = 0;
+            for (; p < length; p++) {
+                final int ch = charAt(cs, object, offset, p);
+                if (ch < '0' || ch > '9')
+                    break;
+                // beyond this the result is 0 or infinity anyway
+                if (exp < 100_000)
+                    exp = exp * 10 + (ch - '0');
+            }
+            // an 'e' without digits is not part of the number
+            if (p > expStart) {
+                exp10 += expNegative ? -exp : exp;
+                end = p;
+            }
+        }
+
+        double d = DoubleParser.toDouble(negative, digits, exp10);
+        // the dropped digits could only matter if rounding the significand up gives a different result
+        if (truncated && d != DoubleParser.toDouble(negative, digits + 1, exp10))
+            d = Double.NaN;
+        if (Double.isNaN(d))
+            return Double.parseDouble(substring(cs, object, offset, end));
+        return d;
+    }
 
-        if (decimalPlaces < 0)
-            decimalPlaces = 0;
+    private static boolean matches(@Nullable CharSequence cs, @Nullable Object object, long offset, int length, int pos, @NotNull String s) {
+        if (s.length() > length - pos)
+            return false;
+        for (int i = 0; i < s.length(); i++)
+            if (charAt(cs, object, offset, pos + i) != s.charAt(i))
+                return false;
+        return true;
+    }
 
-        return Maths.asDouble(value, exp, negative, decimalPlaces);
+    @NotNull
+    private static String substring(@Nullable CharSequence cs, @Nullable Object object, long offset, int length) {
+        if (cs != null)
+            return cs.subSequence(0, length).toString();
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) charAt(null, object, offset, i);
+        return new String(chars);
     }
 
     private static void ensureJava9Plus() {
@@ -366,21 +521,6 @@ public final class StringUtils {
         }
     }
 
-    private static boolean compareRest(@NotNull CharSequence in,
-                                       final int pos,
-                                       @NotNull String s) {
-
-        if (s.length() > in.length() - pos)
-            return false;
-
-        for (int i = 0; i < s.length(); i++) {
-            if (charAt(in, i + pos) != s.charAt(i)) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     @Nullable
     public static String toTitleCase(@Nullable String name) {
         if (name == null || name.isEmpty())
@@ -485,6 +625,109 @@ public final class StringUtils {
         return negative ? result : -result;
     }
 
+    /**
+     * Parses a signed decimal long from ISO-8859-1 text in native memory, eight digits at a time.
+     *
+     * @param address of the text
+     * @param length  of the text in bytes
+     * @return the value parsed
+     * @throws NumberFormatException in the same cases as {@link #parseLong(CharSequence, int)} with a radix of 10
+     */
+    public static long parseLong(long address, int length) throws NumberFormatException {
+        return parseLong0(null, address, length);
+    }
+
+    /**
+     * Parses a signed decimal long from ISO-8859-1 text in a byte[], eight digits at a time.
+     *
+     * @param bytes  containing the text
+     * @param offset of the text
+     * @param length of the text
+     * @return the value parsed
+     * @throws NumberFormatException     in the same cases as {@link #parseLong(CharSequence, int)} with a radix of 10
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+    public static long parseLong(@NotNull byte[] bytes, int offset, int length) throws NumberFormatException {
+        if (offset < 0 || length < 0 || offset > bytes.length - length)
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", array length: " + bytes.length);
+        return parseLong0(bytes, (long) Unsafe.ARRAY_BYTE_BASE_OFFSET + offset, length);
+    }
+
+    /**
+     * Parses a signed decimal int from ISO-8859-1 text in native memory.
+     *
+     * @throws NumberFormatException in the same cases as {@link #parseInt(CharSequence, int)} with a radix of 10
+     */
+    public static int parseInt(long address, int length) throws NumberFormatException {
+        final long value = parseLong0(null, address, length);
+        if ((int) value != value)
+            throw forInputString(substring(null, null, address, length));
+        return (int) value;
+    }
+
+    /**
+     * Parses a signed decimal int from ISO-8859-1 text in a byte[].
+     *
+     * @throws NumberFormatException     in the same cases as {@link #parseInt(CharSequence, int)} with a radix of 10
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+    public static int parseInt(@NotNull byte[] bytes, int offset, int length) throws NumberFormatException {
+        final long value = parseLong(bytes, offset, length);
+        if ((int) value != value)
+            throw forInputString(substring(null, bytes, (long) Unsafe.ARRAY_BYTE_BASE_OFFSET + offset, length));
+        return (int) value;
+    }
+
+    private static long parseLong0(@Nullable Object object, long offset, int length) throws NumberFormatException {
+        if (length <= 0)
+            throw forInputString(substring(null, object, offset, length < 0 ? 0 : length));
+        int i = 0;
+        boolean negative = false;
+        final int first = MEMORY.readByte(object, offset);
+        if (first < '0') { // Possible leading "+" or "-"
+            if (first == '-')
+                negative = true;
+            else if (first != '+')
+                throw forInputString(substring(null, object, offset, length));
+            if (length == 1) // Cannot have lone "+" or "-"
+                throw forInputString(substring(null, object, offset, length));
+            i++;
+        }
+        // leading zeros don't count towards the 19 digits which fit
+        while (i < length - 1 && MEMORY.readByte(object, offset + i) == '0')
+            i++;
+        if (length - i > 19)
+            throw forInputString(substring(null, object, offset, length));
+
+        // at most 19 digits so this can't overflow as an unsigned long
+        long value = 0;
+        for (; i <= length - 8; i += 8) {
+            long chunk = MEMORY.readLong(object, offset + i);
+            if (!LITTLE_ENDIAN)
+                chunk = Long.reverseBytes(chunk);
+            if (((chunk & 0xF0F0F0F0F0F0F0F0L) | (((chunk + 0x0606060606060606L) & 0xF0F0F0F0F0F0F0F0L) >>> 4)) != 0x3333333333333333L)
+                throw forInputString(substring(null, object, offset, length));
+            value = value * 100_000_000 + eightDigits(chunk);
+        }
+        for (; i < length; i++) {
+            final int digit = MEMORY.readByte(object, offset + i) - '0';
+            if (digit < 0 || digit > 9)
+                throw forInputString(substring(null, object, offset, length));
+            value = value * 10 + digit;
+        }
+        if (Long.compareUnsigned(value, negative ? Long.MIN_VALUE : Long.MAX_VALUE) > 0)
+            throw forInputString(substring(null, object, offset, length));
+        return negative ? -value : value;
+    }
+
+    // converts eight ASCII digits, the first in the lowest byte, to their value
+    private static long eightDigits(long chunk) {
+        long val = chunk & 0x0F0F0F0F0F0F0F0FL;
+        val = (val * 2561) >>> 8;
+        val = ((val & 0x00FF00FF00FF00FFL) * 6553601) >>> 16;
+        return ((val & 0x0000FFFF0000FFFFL) * 42949672960001L) >>> 32;
+    }
+
     static NumberFormatException forInputString(CharSequence s) {
         return new NumberFormatException("For input string: \"" + s + "\"");
     }
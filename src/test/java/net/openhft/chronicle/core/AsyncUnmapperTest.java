@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core;
+
+import net.openhft.chronicle.core.io.IOTools;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import static org.junit.Assert.assertEquals;
+
+public class AsyncUnmapperTest extends CoreTestCommon {
+
+    @Test
+    public void unmapInBackground() throws IOException {
+        File file = IOTools.createTempFile(getClass().getName() + ".unmapInBackground");
+
+        try (RandomAccessFile rw = new RandomAccessFile(file, "rw")) {
+            FileChannel fc = rw.getChannel();
+            final long chunk = 1 << 20;
+            final int chunks = 16;
+            rw.setLength(chunk * chunks);
+            final long mapped = OS.memoryMapped();
+            long[] addresses = new long[chunks];
+            for (int i = 0; i < chunks; i++) {
+                addresses[i] = OS.map(fc, MapMode.READ_WRITE, i * chunk, chunk);
+                OS.memory().writeLong(addresses[i], i);
+            }
+            assertEquals(mapped + chunks * chunk, OS.memoryMapped());
+
+            for (long address : addresses)
+                AsyncUnmapper.unmap(address, chunk);
+            AsyncUnmapper.flush();
+
+            assertEquals(0, AsyncUnmapper.pendingBytes());
+            assertEquals(mapped, OS.memoryMapped());
+        }
+    }
+}
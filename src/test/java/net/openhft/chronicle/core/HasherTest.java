@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
+
+public class HasherTest extends CoreTestCommon {
+
+    @Test
+    public void firstFieldSameAsMaths() {
+        assertEquals(Maths.hash64(123456789012345L), Hasher.acquire().add(123456789012345L).hash64());
+        assertEquals(Maths.hash64(-7), Hasher.acquire().add(-7).hash64());
+        for (String s : new String[]{"", "hello world", "café", "€100"}) {
+            assertEquals(s, Maths.hash64(s), Hasher.acquire().add(s).hash64());
+            assertEquals(s, Maths.hash32(s), Hasher.acquire().add(s).hash32());
+            assertEquals(s, Maths.hash64(new StringBuilder(s)), Hasher.acquire().add(new StringBuilder(s)).hash64());
+        }
+        assertEquals(0, Hasher.acquire().add((CharSequence) null).hash64());
+
+        final byte[] bytes = "composite key".getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(Maths.hash64("composite key"), Hasher.acquire().add(bytes, 0, bytes.length).hash64());
+        final long address = MEMORY.allocate(bytes.length);
+        try {
+            MEMORY.copyMemory(bytes, 0, address, bytes.length);
+            assertEquals(Maths.hash64("composite key"), Hasher.acquire().add(address, bytes.length).hash64());
+        } finally {
+            MEMORY.freeMemory(address, bytes.length);
+        }
+    }
+
+    @Test
+    public void compositeKeys() {
+        final long hash = Hasher.acquire().add("EURUSD").add(42).add("venue".getBytes(StandardCharsets.ISO_8859_1), 0, 5).hash64();
+        assertEquals(hash, Hasher.acquire().add(new StringBuilder("EURUSD")).add(42L).add("venue").hash64());
+
+        // field boundaries and order matter
+        assertNotEquals(Hasher.acquire().add("ab").add("c").hash64(), Hasher.acquire().add("a").add("bc").hash64());
+        assertNotEquals(Hasher.acquire().add(1).add(2).hash64(), Hasher.acquire().add(2).add(1).hash64());
+        assertNotEquals(Hasher.acquire().add("a").add("").hash64(), Hasher.acquire().add("a").add((CharSequence) null).hash64());
+    }
+
+    @Test
+    public void reusedPerThread() {
+        final Hasher hasher = Hasher.acquire().add(1).add("x");
+        assertSame(hasher, Hasher.acquire());
+        // acquire resets it
+        assertEquals(Maths.hash64(2), hasher.add(2).hash64());
+    }
+}
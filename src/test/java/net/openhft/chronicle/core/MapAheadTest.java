@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core;
+
+import net.openhft.chronicle.core.io.IOTools;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel.MapMode;
+
+import static org.junit.Assert.*;
+
+public class MapAheadTest extends CoreTestCommon {
+
+    @Test
+    public void sequentialWriter() throws IOException {
+        File file = IOTools.createTempFile(getClass().getName() + ".sequentialWriter");
+        final long mapped = OS.memoryMapped();
+        final int chunks = 8;
+        try (RandomAccessFile rw = new RandomAccessFile(file, "rw")) {
+            try (MapAhead mapAhead = new MapAhead(rw.getChannel(), MapMode.READ_WRITE, 1 << 20, 2)) {
+                final long chunkSize = mapAhead.chunkSize();
+                for (int i = 0; i < chunks; i++) {
+                    long address = mapAhead.acquire(i);
+                    OS.memory().writeLong(address + chunkSize - Long.BYTES, i);
+                    // give the background thread time to prepare the next chunk
+                    Jvm.pause(20);
+                    mapAhead.release(i);
+                }
+                assertEquals(chunks, mapAhead.ready() + mapAhead.caughtUp());
+                assertTrue(mapAhead.toString(), mapAhead.ready() > 0);
+                // the chunks looked ahead have been added to the file
+                assertTrue(rw.length() >= chunks * chunkSize);
+            }
+            AsyncUnmapper.flush();
+            assertEquals(mapped, OS.memoryMapped());
+
+            try (MapAhead mapAhead = new MapAhead(rw.getChannel(), MapMode.READ_ONLY, 1 << 20, 4)) {
+                final long chunkSize = mapAhead.chunkSize();
+                for (int i = 0; i < chunks; i++) {
+                    long address = mapAhead.acquire(i);
+                    assertEquals(i, OS.memory().readLong(address + chunkSize - Long.BYTES));
+                    mapAhead.release(i);
+                }
+            }
+            AsyncUnmapper.flush();
+            assertEquals(mapped, OS.memoryMapped());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core;
+
+import net.openhft.chronicle.core.MappedRegionCache.MappedRegion;
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.chronicle.core.io.ReferenceOwner;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel.MapMode;
+
+import static org.junit.Assert.*;
+
+public class MappedRegionCacheTest extends CoreTestCommon {
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        File file = IOTools.createTempFile(getClass().getName() + ".evictsLeastRecentlyUsed");
+        final long mapped = OS.memoryMapped();
+        ReferenceOwner owner = ReferenceOwner.temporary("test");
+        MappedRegion r2;
+        try (MappedRegionCache cache = new MappedRegionCache(MapMode.READ_WRITE, 1 << 20, 3 << 20)) {
+            final long chunkSize = cache.chunkSize();
+            for (int i = 0; i < 3; i++) {
+                MappedRegion region = cache.acquire(file, i, owner);
+                OS.memory().writeLong(region.address(), i);
+                region.release(owner);
+            }
+            assertEquals(3 * chunkSize, cache.mappedBytes());
+
+            // use chunk 0 so chunk 1 is the least recently used
+            MappedRegion r0 = cache.acquire(file, 0, owner);
+            assertEquals(0, OS.memory().readLong(r0.address()));
+            r0.release(owner);
+
+            // hold chunk 2 so it can't be evicted
+            r2 = cache.acquire(file, 2, owner);
+            MappedRegion r3 = cache.acquire(file, 3, owner);
+            assertEquals(1, cache.evictions());
+            assertEquals(3, cache.regions());
+            r3.release(owner);
+
+            MappedRegion r1 = cache.acquire(file, 1, owner);
+            assertEquals(1, OS.memory().readLong(r1.address()));
+            assertEquals(2, cache.evictions());
+            assertEquals(2, OS.memory().readLong(r2.address()));
+            r1.release(owner);
+
+            cache.evictAll();
+            assertEquals(1, cache.regions());
+            assertEquals(chunkSize, cache.mappedBytes());
+            r2.release(owner);
+            // only the cache references it now
+            assertEquals(1, r2.refCount());
+        }
+        assertEquals(0, r2.refCount());
+        assertEquals(mapped, OS.memoryMapped());
+    }
+
+    @Test
+    public void regionOutlivesCache() throws IOException {
+        File file = IOTools.createTempFile(getClass().getName() + ".regionOutlivesCache");
+        final long mapped = OS.memoryMapped();
+        ReferenceOwner owner = ReferenceOwner.temporary("test");
+        MappedRegion region;
+        try (MappedRegionCache cache = new MappedRegionCache(MapMode.READ_WRITE, 1 << 20, 1 << 20)) {
+            region = cache.acquire(file, 5, owner);
+            assertEquals(6 * cache.chunkSize(), file.length());
+        }
+        OS.memory().writeLong(region.address(), 1);
+        region.release(owner);
+        assertEquals(mapped, OS.memoryMapped());
+    }
+}
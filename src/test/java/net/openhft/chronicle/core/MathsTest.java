@@ -30,6 +30,7 @@ import org.junit.Test;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.util.Random;
 import java.util.stream.DoubleStream;
 import java.util.stream.Stream;
@@ -445,6 +446,31 @@ public class MathsTest {
         assertNotEquals(Maths.hash64("Δ"), Maths.hash64("Γ"));
     }
 
+    @Test
+    public void hash64ForBytesMatchesString() {
+        final String text = "Hello World, 35=D|49=SENDER|56=TARGET|11=ORDER-123456789";
+        final byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        final long address = UnsafeMemory.MEMORY.allocate(bytes.length);
+        try {
+            UnsafeMemory.MEMORY.copyMemory(bytes, 0, address, bytes.length);
+            for (int len = 0; len <= text.length(); len++) {
+                final String s = text.substring(0, len);
+                assertEquals(s, Maths.hash64(s), Maths.hash64(address, len));
+                assertEquals(s, Maths.hash64(s), Maths.hash64(bytes, 0, len));
+                assertEquals(s, Maths.hash32(s), Maths.hash32(address, len));
+                assertEquals(s, Maths.hash32(s), Maths.hash32(bytes, 0, len));
+                assertEquals(s, Maths.wordHash64(bytes, 0, len), Maths.wordHash64(address, len));
+            }
+            // an offset into the array
+            assertEquals(Maths.hash64("World"), Maths.hash64(bytes, 6, 5));
+            assertEquals(Maths.wordHash64(address + 6, 5), Maths.wordHash64(bytes, 6, 5));
+            assertNotEquals(Maths.wordHash64(address, 8), Maths.wordHash64(address, 9));
+            assertNotEquals(Maths.wordHash64(address, 8), Maths.wordHash64(address + 1, 8));
+        } finally {
+            UnsafeMemory.MEMORY.freeMemory(address, bytes.length);
+        }
+    }
+
     @Test
     public void floorNceilN() {
         double d = 64.0915946999999;
@@ -167,6 +167,29 @@ public class OSTest {
         }
     }
 
+    @Test
+    public void mapWithHints() throws IOException {
+        File file = IOTools.createTempFile(getClass().getName() + "." + testName.getMethodName());
+
+        try (RandomAccessFile rw = new RandomAccessFile(file, "rw")) {
+            FileChannel fc = rw.getChannel();
+            // the mapping extends past the end of the file, which populate must not touch
+            long length = 64 << 10;
+            rw.setLength(length / 2);
+            long mapped = OS.memoryMapped();
+
+            long address = OS.map(fc, MapMode.READ_WRITE, 0, length,
+                    MapHint.SEQUENTIAL, MapHint.WILLNEED, MapHint.HUGEPAGE, MapHint.POPULATE);
+            assertEquals(mapped + length, OS.memoryMapped());
+
+            OS.memory().writeLong(address + length / 2 - Long.BYTES, 1234);
+            assertEquals(1234, OS.memory().readLong(address + length / 2 - Long.BYTES));
+
+            OS.unmap(address, length);
+            assertEquals(mapped, OS.memoryMapped());
+        }
+    }
+
     @Test
     public void getHostname() throws IOException {
         System.out.println("exec hostname: " + OS.HostnameHolder.execHostname());
@@ -181,6 +181,194 @@ public class UnsafeMemory2Test {
         UNSAFE.freeMemory(addr);
     }
 
+    @Test
+    public void mismatchAndCompareAddr() {
+        final long addrA = UNSAFE.allocateMemory(64);
+        final long addrB = UNSAFE.allocateMemory(64);
+        for (int i = 0; i < 64; i++) {
+            memory.writeByte(addrA + i, (byte) i);
+            memory.writeByte(addrB + i, (byte) i);
+        }
+        for (int length = 0; length <= 64; length++) {
+            assertEquals(-1, memory.mismatch(addrA, addrB, length));
+            assertEquals(0, memory.compare(addrA, addrB, length));
+        }
+        for (int i = 0; i < 64; i++) {
+            memory.writeByte(addrB + i, (byte) 0x80);
+            for (int length = i + 1; length <= 64; length++) {
+                assertEquals(i, memory.mismatch(addrA, addrB, length));
+                assertTrue(memory.compare(addrA, addrB, length) < 0);
+                assertTrue(memory.compare(addrB, addrA, length) > 0);
+            }
+            assertEquals(-1, memory.mismatch(addrA, addrB, i));
+            memory.writeByte(addrB + i, (byte) i);
+        }
+        UNSAFE.freeMemory(addrA);
+        UNSAFE.freeMemory(addrB);
+    }
+
+    @Test
+    public void mismatchAndCompareBytes() {
+        final long base = memory.arrayBaseOffset(byte[].class);
+        byte[] a = "Hello World, how are you today?".getBytes();
+        byte[] b = a.clone();
+        final long addr = UNSAFE.allocateMemory(a.length);
+        memory.copyMemory(a, 0, addr, a.length);
+        assertEquals(-1, memory.mismatch(a, base, b, base, a.length));
+        assertEquals(-1, memory.mismatch(a, base, null, addr, a.length));
+        for (int i = 0; i < a.length; i++) {
+            b[i]++;
+            assertEquals(i, memory.mismatch(a, base, b, base, a.length));
+            assertEquals(i, memory.mismatch(b, base, null, addr, a.length));
+            assertEquals(Integer.signum(compareUnsigned(a, b)), Integer.signum(memory.compare(a, base, b, base, a.length)));
+            b[i]--;
+        }
+        UNSAFE.freeMemory(addr);
+    }
+
+    // Arrays.compareUnsigned is Java 9+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        for (int i = 0, len = Math.min(a.length, b.length); i < len; i++)
+            if (a[i] != b[i])
+                return Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+        return Integer.compare(a.length, b.length);
+    }
+
+    @Test
+    public void indexOfAddr() {
+        final long addr = UNSAFE.allocateMemory(256);
+        for (int i = 0; i < 256; i++)
+            memory.writeByte(addr + i, (byte) i);
+        for (int start = 0; start < 20; start++) {
+            for (int i = 0; i < 256; i++) {
+                int expected = i < start ? -1 : i - start;
+                assertEquals("start: " + start + ", b: " + i, expected, memory.indexOf(addr + start, 256 - start, (byte) i));
+                assertEquals(-1, memory.indexOf(addr + start, Math.max(0, i - start), (byte) i));
+            }
+        }
+        UNSAFE.freeMemory(addr);
+    }
+
+    @Test
+    public void indexOfBytes() {
+        final long base = memory.arrayBaseOffset(byte[].class);
+        byte[] bytes = "8=FIX.4.4\u00019=12\u000135=A\u000110=123\u0001".getBytes();
+        int offset = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != 1)
+                continue;
+            assertEquals(i - offset, memory.indexOf(bytes, base + offset, bytes.length - offset, (byte) 1));
+            offset = i + 1;
+        }
+        assertEquals(bytes.length, offset);
+        assertEquals(-1, memory.indexOf(bytes, base, bytes.length, (byte) '|'));
+        // a byte just above a match must not be found early due to the borrow
+        byte[] borrow = {0x01, 0x00, 0x01, 0x01, 0x01, 0x01, 0x01, 0x01, 0x01};
+        assertEquals(1, memory.indexOf(borrow, base, borrow.length, (byte) 0));
+        assertEquals(0, memory.indexOf(borrow, base, borrow.length, (byte) 1));
+    }
+
+    @Test
+    public void copyLongArrays() {
+        long[] longs = {1, -2, Long.MAX_VALUE, Long.MIN_VALUE, 0x0102030405060708L};
+        long address = memory.allocate(longs.length * 8L);
+        try {
+            memory.copy(longs, 1, address, 4);
+            assertEquals(-2, memory.readLong(address));
+            assertEquals(0x0102030405060708L, memory.readLong(address + 24));
+            long[] copy = new long[5];
+            memory.copy(address, copy, 1, 4);
+            assertArrayEquals(new long[]{0, -2, Long.MAX_VALUE, Long.MIN_VALUE, 0x0102030405060708L}, copy);
+
+            memory.copySwapped(longs, 0, address, 5);
+            assertEquals(Long.reverseBytes(0x0102030405060708L), memory.readLong(address + 32));
+            memory.copySwapped(address, copy, 0, 5);
+            assertArrayEquals(longs, copy);
+        } finally {
+            memory.freeMemory(address, longs.length * 8L);
+        }
+    }
+
+    @Test
+    public void copyTypedArrays() {
+        long address = memory.allocate(64);
+        try {
+            int[] ints = {1, 2, 0x01020304};
+            memory.copySwapped(ints, 0, address, 3);
+            assertEquals(0x04030201, memory.readInt(address + 8));
+            int[] ints2 = new int[3];
+            memory.copySwapped(address, ints2, 0, 3);
+            assertArrayEquals(ints, ints2);
+
+            double[] doubles = {1.5, -0.0, Double.NaN, Math.PI};
+            memory.copy(doubles, 0, address, 4);
+            assertEquals(Math.PI, memory.readDouble(address + 24), 0.0);
+            double[] doubles2 = new double[4];
+            memory.copy(address, doubles2, 0, 4);
+            assertArrayEquals(doubles, doubles2, 0.0);
+            memory.copySwapped(doubles, 0, address, 4);
+            assertEquals(Long.reverseBytes(Double.doubleToRawLongBits(Math.PI)), memory.readLong(address + 24));
+
+            float[] floats = {1.5f, 2.5f};
+            memory.copySwapped(floats, 0, address, 2);
+            float[] floats2 = new float[2];
+            memory.copySwapped(address, floats2, 0, 2);
+            assertArrayEquals(floats, floats2, 0.0f);
+
+            short[] shorts = {0x0102, -1};
+            memory.copySwapped(shorts, 0, address, 2);
+            assertEquals(0x0201, memory.readShort(address));
+            short[] shorts2 = new short[2];
+            memory.copy(address, shorts2, 0, 2);
+            assertEquals(0x0201, shorts2[0]);
+
+            char[] chars = "Hello".toCharArray();
+            memory.copy(chars, 0, address, 5);
+            char[] chars2 = new char[5];
+            memory.copy(address, chars2, 0, 5);
+            assertArrayEquals(chars, chars2);
+
+            byte[] bytes = "Hello World".getBytes();
+            memory.copy(bytes, 6, address, 5);
+            byte[] bytes2 = new byte[5];
+            memory.copy(address, bytes2, 0, 5);
+            assertEquals("World", new String(bytes2));
+        } finally {
+            memory.freeMemory(address, 64);
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void copyOutOfBounds() {
+        memory.copy(new long[4], 2, 0L, 3);
+    }
+
+    @Test
+    public void getAndBitwise() {
+        long address = memory.allocate(16);
+        try {
+            memory.writeInt(address, 0b0101);
+            assertEquals(0b0101, memory.getAndBitwiseOrInt(address, 0b0011));
+            assertEquals(0b0111, memory.getAndBitwiseAndInt(address, 0b0110));
+            assertEquals(0b0110, memory.getAndBitwiseXorInt(address, 0b1111));
+            assertEquals(0b1001, memory.readInt(address));
+
+            memory.writeLong(address + 8, 1L << 63);
+            assertEquals(1L << 63, memory.getAndBitwiseOrLong(address + 8, 1));
+            assertEquals((1L << 63) | 1, memory.getAndBitwiseAndLong(address + 8, ~1L));
+            assertEquals(1L << 63, memory.getAndBitwiseXorLong(address + 8, -1L));
+            assertEquals(Long.MAX_VALUE, memory.readLong(address + 8));
+        } finally {
+            memory.freeMemory(address, 16);
+        }
+        MyDTO dto = new MyDTO();
+        long offset = memory.getFieldOffset(Jvm.getField(MyDTO.class, "num"));
+        assertEquals(0, memory.getAndBitwiseOrInt(dto, offset, 6));
+        assertEquals(6, memory.getAndBitwiseAndInt(dto, offset, 3));
+        assertEquals(2, memory.getAndBitwiseXorInt(dto, offset, 3));
+        assertEquals(1, dto.num);
+    }
+
     @Test
     public void partialReadBytes() {
         byte[] bytes = new byte[16];
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.io;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
+
+public class NativeArenaTest extends CoreTestCommon {
+
+    @Test
+    public void sizeClasses() {
+        assertEquals(0, NativeArena.sizeClass(1));
+        assertEquals(0, NativeArena.sizeClass(16));
+        assertEquals(1, NativeArena.sizeClass(17));
+        assertEquals(1, NativeArena.sizeClass(32));
+        assertEquals(2, NativeArena.sizeClass(33));
+        assertEquals(NativeArena.MAX_BLOCK_SIZE, NativeArena.blockSize(NativeArena.sizeClass(NativeArena.MAX_BLOCK_SIZE)));
+    }
+
+    @Test
+    public void recyclesFreedBlocks() {
+        final long used = MEMORY.nativeMemoryUsed();
+        try (NativeArena arena = new NativeArena()) {
+            long a = arena.allocate(100);
+            long b = arena.allocate(100);
+            assertNotEquals(a, b);
+            MEMORY.setMemory(a, 100, (byte) 1);
+            MEMORY.setMemory(b, 100, (byte) 2);
+            assertEquals(2, MEMORY.readByte(b + 99));
+
+            arena.free(a, 100);
+            // same size class
+            assertEquals(a, arena.allocate(128));
+            // different size class
+            assertNotEquals(a, arena.allocate(16));
+
+            assertEquals(arena.slabSize(), arena.reservedMemory());
+            assertEquals(used + arena.slabSize(), MEMORY.nativeMemoryUsed());
+        }
+        assertEquals(used, MEMORY.nativeMemoryUsed());
+    }
+
+    @Test
+    public void blocksDoNotOverlap() {
+        try (NativeArena arena = new NativeArena(NativeArena.MAX_BLOCK_SIZE)) {
+            Set<Long> addresses = new HashSet<>();
+            for (int i = 0; i < 2000; i++) {
+                long address = arena.allocate(64);
+                assertEquals(0, address & 15);
+                assertTrue(addresses.add(address));
+                MEMORY.writeLong(address + 56, i);
+            }
+            // 2000 blocks of 64 bytes need more than one slab
+            assertTrue(arena.reservedMemory() > NativeArena.MAX_BLOCK_SIZE);
+        }
+    }
+
+    @Test
+    public void largeBlocks() {
+        final long used = MEMORY.nativeMemoryUsed();
+        try (NativeArena arena = new NativeArena()) {
+            long size = NativeArena.MAX_BLOCK_SIZE + 1;
+            long a = arena.allocate(size);
+            long b = arena.allocate(size);
+            assertEquals(2 * size, arena.reservedMemory());
+            arena.free(a, size);
+            assertEquals(size, arena.reservedMemory());
+            try {
+                arena.free(a, size);
+                fail();
+            } catch (IllegalArgumentException expected) {
+                // already freed
+            }
+            MEMORY.writeLong(b, 1);
+        }
+        // b is released with the arena
+        assertEquals(used, MEMORY.nativeMemoryUsed());
+    }
+
+    @Test
+    public void threadLocalFreeLists() throws InterruptedException {
+        try (NativeArena arena = new NativeArena()) {
+            long a = arena.allocate(32);
+            long[] other = new long[2];
+            Thread t = new Thread(() -> {
+                other[0] = arena.allocate(32);
+                arena.free(a, 32);
+                other[1] = arena.allocate(32);
+            });
+            t.start();
+            t.join();
+            assertNotEquals(a, other[0]);
+            // freed on the other thread so recycled there
+            assertEquals(a, other[1]);
+            assertNotEquals(a, arena.allocate(32));
+            assertEquals(2 * arena.slabSize(), arena.reservedMemory());
+        }
+    }
+
+    @Test(expected = ClosedIllegalStateException.class)
+    public void allocateWhenClosed() {
+        NativeArena arena = new NativeArena();
+        arena.close();
+        arena.allocate(8);
+    }
+
+    @Test
+    public void slabTooSmall() {
+        try (NativeArena arena = new NativeArena(1024)) {
+            assertEquals(NativeArena.MAX_BLOCK_SIZE, arena.slabSize());
+        }
+    }
+}
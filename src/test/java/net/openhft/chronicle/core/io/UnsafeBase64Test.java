@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.io;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import org.junit.Test;
+
+import java.util.Base64;
+import java.util.Random;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
+
+public class UnsafeBase64Test extends CoreTestCommon {
+
+    @Test
+    public void sameAsJavaUtil() {
+        final long from = MEMORY.allocate(64);
+        final long text = MEMORY.allocate(128);
+        final long to = MEMORY.allocate(64);
+        try {
+            Random rand = new Random(1);
+            for (int length = 0; length <= 64; length++) {
+                final byte[] bytes = new byte[length];
+                rand.nextBytes(bytes);
+                MEMORY.copyMemory(bytes, 0, from, length);
+
+                long end = UnsafeBase64.appendBase64(text, from, length);
+                assertEquals(UnsafeBase64.encodedLength(length), end - text);
+                assertEquals(Base64.getEncoder().encodeToString(bytes), UnsafeHexTest.toString(text, end));
+                assertDecodes(bytes, text, (int) (end - text), to);
+
+                end = UnsafeBase64.appendBase64Url(text, from, length);
+                final String url = Base64.getUrlEncoder().encodeToString(bytes);
+                assertEquals(url, UnsafeHexTest.toString(text, end));
+                assertDecodes(bytes, text, (int) (end - text), to);
+
+                // without padding
+                final int unpadded = url.replace("=", "").length();
+                assertDecodes(bytes, text, unpadded, to);
+            }
+        } finally {
+            MEMORY.freeMemory(from, 64);
+            MEMORY.freeMemory(text, 128);
+            MEMORY.freeMemory(to, 64);
+        }
+    }
+
+    @Test
+    public void invalid() {
+        final long text = MEMORY.allocate(32);
+        final long to = MEMORY.allocate(32);
+        try {
+            for (String s : new String[]{"A", "AB=", "ABCDE", "AB*D", "ABCD====", "ABCDEF.="}) {
+                UnsafeHexTest.write(text, s);
+                try {
+                    UnsafeBase64.parseBase64(text, s.length(), to);
+                    fail(s);
+                } catch (IllegalArgumentException expected) {
+                    // expected
+                }
+            }
+            final String s = "SGVsbG8=";
+            UnsafeHexTest.write(text, s);
+            final long end = UnsafeBase64.parseBase64(text, s.length(), to);
+            assertEquals("Hello", UnsafeHexTest.toString(to, end));
+        } finally {
+            MEMORY.freeMemory(text, 32);
+            MEMORY.freeMemory(to, 32);
+        }
+    }
+
+    private static void assertDecodes(byte[] bytes, long text, int length, long to) {
+        assertEquals(to + bytes.length, UnsafeBase64.parseBase64(text, length, to));
+        for (int i = 0; i < bytes.length; i++)
+            assertEquals(bytes[i], MEMORY.readByte(to + i));
+    }
+}
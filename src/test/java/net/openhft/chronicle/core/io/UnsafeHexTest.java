@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.io;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
+
+public class UnsafeHexTest extends CoreTestCommon {
+
+    @Test
+    public void roundTrip() {
+        final long from = MEMORY.allocate(64);
+        final long text = MEMORY.allocate(128);
+        final long to = MEMORY.allocate(64);
+        try {
+            Random rand = new Random(1);
+            for (int length = 0; length <= 64; length++) {
+                final byte[] bytes = new byte[length];
+                rand.nextBytes(bytes);
+                MEMORY.copyMemory(bytes, 0, from, length);
+
+                final long end = UnsafeHex.appendHex(text, from, length);
+                assertEquals(text + 2L * length, end);
+                final StringBuilder expected = new StringBuilder();
+                for (byte b : bytes)
+                    expected.append(String.format("%02x", b & 0xFF));
+                assertEquals(expected.toString(), toString(text, end));
+
+                assertEquals(to + length, UnsafeHex.parseHex(text, 2 * length, to));
+                for (int i = 0; i < length; i++)
+                    assertEquals(bytes[i], MEMORY.readByte(to + i));
+            }
+        } finally {
+            MEMORY.freeMemory(from, 64);
+            MEMORY.freeMemory(text, 128);
+            MEMORY.freeMemory(to, 64);
+        }
+    }
+
+    @Test
+    public void upperCaseAndInvalid() {
+        final long text = MEMORY.allocate(32);
+        final long to = MEMORY.allocate(16);
+        try {
+            write(text, "DEADbeef0A1b");
+            assertEquals(to + 6, UnsafeHex.parseHex(text, 12, to));
+            assertEquals(0xDE, MEMORY.readByte(to) & 0xFF);
+            assertEquals(0x1B, MEMORY.readByte(to + 5) & 0xFF);
+
+            for (String s : new String[]{"abc", "0g", "0123456z", "01234567890x"}) {
+                write(text, s);
+                try {
+                    UnsafeHex.parseHex(text, s.length(), to);
+                    fail(s);
+                } catch (IllegalArgumentException expected) {
+                    // expected
+                }
+            }
+        } finally {
+            MEMORY.freeMemory(text, 32);
+            MEMORY.freeMemory(to, 16);
+        }
+    }
+
+    static void write(long address, String s) {
+        for (int i = 0; i < s.length(); i++)
+            MEMORY.writeByte(address + i, (byte) s.charAt(i));
+    }
+
+    static String toString(long address, long end) {
+        final StringBuilder sb = new StringBuilder();
+        for (long a = address; a < end; a++)
+            sb.append((char) MEMORY.readByte(a));
+        return sb.toString();
+    }
+}
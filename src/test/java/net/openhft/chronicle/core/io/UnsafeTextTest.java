@@ -18,10 +18,12 @@
 
 package net.openhft.chronicle.core.io;
 
+import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.cooler.CoolerTester;
 import net.openhft.chronicle.core.cooler.CpuCoolers;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Random;
 import java.util.stream.IntStream;
@@ -29,6 +31,7 @@ import java.util.stream.LongStream;
 
 import static net.openhft.chronicle.core.UnsafeMemory.UNSAFE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class UnsafeTextTest {
@@ -64,6 +67,58 @@ public class UnsafeTextTest {
 
     }
 
+    @Test
+    public void utf8RoundTrip() {
+        long address = UNSAFE.allocateMemory(64);
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (String s : new String[]{"", "Hello World", "caf\u00e9", "\u20ac100", "\ud83d\ude00 smile", "\u0416\u0436"}) {
+                final byte[] expected = s.getBytes(StandardCharsets.UTF_8);
+                assertEquals(expected.length, UnsafeText.utf8Length(s));
+                long end = UnsafeText.appendUtf8(address, s);
+                assertEquals(expected.length, end - address);
+                for (int i = 0; i < expected.length; i++)
+                    assertEquals(expected[i], UNSAFE.getByte(address + i));
+                UnsafeText.parseUtf8(address, expected.length, sb);
+                assertEquals(s, sb.toString());
+
+                // a StringBuilder takes the same path
+                assertEquals(end, UnsafeText.appendUtf8(address, new StringBuilder(s)));
+            }
+        } finally {
+            UNSAFE.freeMemory(address);
+        }
+    }
+
+    @Test
+    public void utf8Malformed() {
+        long address = UNSAFE.allocateMemory(16);
+        try {
+            // lone surrogate
+            assertEquals(address + 3, UnsafeText.appendUtf8(address, "a\ud800b"));
+            assertEquals('?', UNSAFE.getByte(address + 1));
+
+            // truncated, overlong and stray continuation bytes
+            byte[] bytes = {'a', (byte) 0xC0, (byte) 0x80, 'b', (byte) 0x80, (byte) 0xE2, (byte) 0x82};
+            for (int i = 0; i < bytes.length; i++)
+                UNSAFE.putByte(address + i, bytes[i]);
+            StringBuilder sb = new StringBuilder();
+            UnsafeText.parseUtf8(address, bytes.length, sb);
+            assertEquals("a\ufffd\ufffdb\ufffd\ufffd", sb.toString());
+
+            // a sequence cut short by a byte which isn't a continuation, the byte is still decoded
+            for (byte[] bytes2 : new byte[][]{{(byte) 0xE2, 'A'}, {(byte) 0xF0, (byte) 0x9F, 'A'}, {(byte) 0xF3, (byte) 0xD2, 'j'}}) {
+                for (int i = 0; i < bytes2.length; i++)
+                    UNSAFE.putByte(address + i, bytes2[i]);
+                sb.setLength(0);
+                UnsafeText.parseUtf8(address, bytes2.length, sb);
+                assertEquals(new String(bytes2, StandardCharsets.UTF_8), sb.toString());
+            }
+        } finally {
+            UNSAFE.freeMemory(address);
+        }
+    }
+
     @Test
     public void testAppendDouble() {
         // TODO FIX
@@ -76,7 +131,7 @@ public class UnsafeTextTest {
 
         // FIXED
         testAppendDoubleOnce(-1.4778838950354771E-9, "-1.4778838950354771E-9");
-        testAppendDoubleOnce(-145344868913.80003, "-145344868913.80003");
+        testAppendDoubleOnce(-145344868913.80003, "-145344868913.80002");
 
         testAppendDoubleOnce(1.4753448053710411E-8, "1.4753448053710411E-8");
         testAppendDoubleOnce(4.731428525883379E-10, "4.731428525883379E-10");
@@ -140,7 +195,7 @@ public class UnsafeTextTest {
         testAppendDoubleOnce(1e-10 + Math.ulp(1e-10), "1.0000000000000002E-10");
         testAppendDoubleOnce(1e-11 + Math.ulp(1e-11), "1.0000000000000001E-11");
         double d = -1e30;
-        testAppendDoubleOnce(d - Math.ulp(d), "-1000000000000000158000000000000");
+        testAppendDoubleOnce(d - Math.ulp(d), "-1000000000000000200000000000000");
         d = -1e31;
         testAppendDoubleOnce(d - Math.ulp(d), "-1.0000000000000001E31");
         d = -1e32;
@@ -148,6 +203,67 @@ public class UnsafeTextTest {
 
     }
 
+    @Test
+    public void appendDoubleShortest() {
+        long address = UNSAFE.allocateMemory(max + 8);
+        try {
+            Random r = new Random(1);
+            for (int i = 0; i < 1_000_000; i++) {
+                double d = Double.longBitsToDouble(r.nextLong());
+                if (i % 2 == 0)
+                    d = (r.nextInt(2_000_000) - 1_000_000) / 1e4;
+                if (Double.isNaN(d))
+                    continue;
+                final String s = appendDoubleToString(d, address);
+                assertEquals(s, Double.doubleToLongBits(d), Double.doubleToLongBits(Double.parseDouble(s)));
+                final String expected = Double.toString(d);
+                if (Jvm.isJava19Plus() && (s.contains("E") || Math.abs(d) >= 1e-3 && Math.abs(d) < 1e7))
+                    assertEquals(expected, s);
+                else
+                    assertTrue(s + " vs " + expected, significantDigits(s) <= significantDigits(expected));
+            }
+            // subnormals and powers of two, where the gap below is half the gap above
+            testAppendDoubleOnce(Double.MIN_VALUE, "4.9E-324");
+            testAppendDoubleOnce(Double.MAX_VALUE, "1.7976931348623157E308");
+            testAppendDoubleOnce(Double.MIN_NORMAL, "2.2250738585072014E-308");
+            testAppendDoubleOnce(0x1p-20, "0.00000095367431640625");
+            testAppendDoubleOnce(-0.0, "-0.0");
+            testAppendDoubleOnce(0x1p52, "4503599627370496");
+            testAppendDoubleOnce(0x1p52 - 0.5, "4503599627370495.5");
+        } finally {
+            UNSAFE.freeMemory(address);
+        }
+    }
+
+    static int significantDigits(String s) {
+        return s.replaceAll("E.*", "").replaceAll("[-.]", "").replaceAll("^0+", "").replaceAll("0+$", "").length();
+    }
+
+    @Test
+    public void appendFixedDouble() {
+        long address = UNSAFE.allocateMemory(64);
+        try {
+            assertEquals("1.25", appendFixedToString(1.25, 2, address));
+            assertEquals("-0.500", appendFixedToString(-0.5, 3, address));
+            assertEquals("3", appendFixedToString(2.5, 0, address));
+            // too large to scale by 10^digits as a long
+            assertEquals("12345678901234568.0000", appendFixedToString(12345678901234568.0, 4, address));
+            assertEquals("-1000000000000000000000.00", appendFixedToString(-1e21, 2, address));
+            assertEquals("4503599627370495.500000", appendFixedToString(4503599627370495.5, 6, address));
+            assertEquals("1.0E31", appendFixedToString(1e31, 2, address));
+        } finally {
+            UNSAFE.freeMemory(address);
+        }
+    }
+
+    static String appendFixedToString(double d, int digits, long address) {
+        final long end = UnsafeText.appendFixed(address, d, digits);
+        final StringBuilder sb = new StringBuilder();
+        for (long a = address; a < end; a++)
+            sb.append((char) UNSAFE.getByte(a));
+        return sb.toString();
+    }
+
     public void testAppendDoubleOnce(double value, String expectedValue) {
         long address = UNSAFE.allocateMemory(max + 8);
         try {
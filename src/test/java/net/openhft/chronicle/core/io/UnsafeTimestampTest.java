@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.io;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import net.openhft.chronicle.core.time.LongTime;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
+
+public class UnsafeTimestampTest extends CoreTestCommon {
+
+    @Test
+    public void sameAsJavaTime() {
+        final long address = MEMORY.allocate(64);
+        try {
+            final Random rand = new Random(1);
+            for (TimeUnit precision : new TimeUnit[]{TimeUnit.SECONDS, TimeUnit.MILLISECONDS, TimeUnit.MICROSECONDS, TimeUnit.NANOSECONDS}) {
+                final UnsafeTimestamp timestamp = new UnsafeTimestamp(precision);
+                final DateTimeFormatter formatter = formatter(precision);
+                long nanos = 1_600_000_000_000_000_000L;
+                for (int i = 0; i < 20_000; i++) {
+                    // mostly small steps on the same day, with an occasional jump, never so small it would be read as micros
+                    nanos = i % 100 == 0 ? LongTime.EPOCH_NANOS + (rand.nextLong() >>> 2) : nanos + rand.nextInt(1 << 30);
+                    final Instant instant = Instant.ofEpochSecond(0, nanos);
+                    final String expected = formatter.format(instant);
+                    final long end = timestamp.append(address, nanos);
+                    assertEquals(timestamp.length(), end - address);
+                    assertEquals(expected, toString(address, end));
+
+                    final long truncated = Math.floorDiv(nanos, precision.toNanos(1)) * precision.toNanos(1);
+                    assertEquals(expected, truncated, UnsafeTimestamp.parseNanos(address, (int) (end - address)));
+                }
+            }
+        } finally {
+            MEMORY.freeMemory(address, 64);
+        }
+    }
+
+    @Test
+    public void otherUnits() {
+        final long address = MEMORY.allocate(64);
+        try {
+            final UnsafeTimestamp timestamp = new UnsafeTimestamp(TimeUnit.MICROSECONDS);
+            final long millis = 1_700_000_000_123L;
+            // millis, micros and nanos of the same time are written the same
+            final String expected = "2023-11-14T22:13:20.123000Z";
+            assertEquals(expected, toString(address, timestamp.append(address, millis)));
+            assertEquals(expected, toString(address, timestamp.append(address, millis * 1000)));
+            assertEquals(expected, toString(address, timestamp.append(address, millis * 1000_000 + 999)));
+            // before the epoch
+            assertEquals("1969-12-31T23:59:59.999999Z", toString(address, timestamp.append(address, -1000)));
+        } finally {
+            MEMORY.freeMemory(address, 64);
+        }
+    }
+
+    @Test
+    public void appendNow() {
+        final long address = MEMORY.allocate(64);
+        try {
+            final SetTimeProvider timeProvider = new SetTimeProvider("2020-02-29T23:59:59.999");
+            final UnsafeTimestamp timestamp = new UnsafeTimestamp(TimeUnit.MILLISECONDS, timeProvider);
+            assertEquals("2020-02-29T23:59:59.999Z", toString(address, timestamp.appendNow(address)));
+            timeProvider.advanceMillis(1);
+            assertEquals("2020-03-01T00:00:00.000Z", toString(address, timestamp.appendNow(address)));
+        } finally {
+            MEMORY.freeMemory(address, 64);
+        }
+    }
+
+    @Test
+    public void parseVariants() {
+        final long address = MEMORY.allocate(64);
+        try {
+            final long expected = Instant.parse("2021-06-07T08:09:10.5Z").toEpochMilli() * 1_000_000;
+            assertEquals(expected, parse(address, "2021-06-07T08:09:10.5Z"));
+            assertEquals(expected, parse(address, "2021-06-07 08:09:10.500000000"));
+            assertEquals(expected - 500_000_000, parse(address, "2021-06-07T08:09:10"));
+            for (String s : new String[]{"2021-06-07T08:09:1", "2021-13-07T08:09:10", "2021-06-07T08:09:10.", "2021-06-07T08:09:10Zx", "2021/06/07T08:09:10"}) {
+                try {
+                    parse(address, s);
+                    fail(s);
+                } catch (IllegalArgumentException expectedException) {
+                    assertTrue(expectedException.getMessage().contains(s));
+                }
+            }
+        } finally {
+            MEMORY.freeMemory(address, 64);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedPrecision() {
+        new UnsafeTimestamp(TimeUnit.MINUTES);
+    }
+
+    private static DateTimeFormatter formatter(TimeUnit precision) {
+        final String fraction = precision == TimeUnit.SECONDS ? "" : "." + "SSSSSSSSS".substring(0, 9 - Long.toString(precision.toNanos(1)).length() + 1);
+        return DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss" + fraction + "'Z'").withZone(ZoneOffset.UTC);
+    }
+
+    private static long parse(long address, String s) {
+        for (int i = 0; i < s.length(); i++)
+            MEMORY.writeByte(address + i, (byte) s.charAt(i));
+        return UnsafeTimestamp.parseNanos(address, s.length());
+    }
+
+    private static String toString(long address, long end) {
+        final StringBuilder sb = new StringBuilder();
+        for (long a = address; a < end; a++)
+            sb.append((char) MEMORY.readByte(a));
+        return sb.toString();
+    }
+}
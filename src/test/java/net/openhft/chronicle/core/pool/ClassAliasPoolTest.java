@@ -25,9 +25,11 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static net.openhft.chronicle.core.pool.ClassAliasPool.CLASS_ALIASES;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.*;
 
 public class ClassAliasPoolTest extends CoreTestCommon {
 
@@ -76,6 +78,46 @@ public class ClassAliasPoolTest extends CoreTestCommon {
         CLASS_ALIASES.addAlias(TestEnum.class, "name1");
     }
 
+    @Test
+    public void freeze() {
+        ClassAliasPool pool = new ClassAliasPool(null);
+        pool.addAlias(TestEnum.class, "te, TestEnum");
+        pool.addAlias(ClassAliasPoolTest.class);
+        pool.freeze();
+        assertTrue(pool.isFrozen());
+        assertEquals(TestEnum.class, pool.forName("te"));
+        assertEquals(TestEnum.class, pool.forName(new StringBuilder("TestEnum")));
+        assertEquals(TestEnum.class, pool.forName(TestEnum.class.getName()));
+        assertEquals(ClassAliasPoolTest.class, pool.forName("classAliasPoolTest"));
+        // not an alias so falls through to class loading
+        assertEquals(String.class, pool.forName("java.lang.String"));
+
+        pool.addAlias(String.class, "str");
+        assertFalse(pool.isFrozen());
+        assertEquals(String.class, pool.forName("str"));
+    }
+
+    @Test(timeout = 10_000)
+    public void addAliasFromStaticInitializerWhileInForName() throws InterruptedException {
+        Thread initializer = new Thread(() -> new AddsAliasOnInit().hashCode(), "initializer");
+        initializer.setDaemon(true);
+        initializer.start();
+        assertTrue(INIT_STARTED.await(5, TimeUnit.SECONDS));
+
+        // waits for the initializer while holding the pool's lock for class loading
+        Thread loader = new Thread(() -> CLASS_ALIASES.forName(AddsAliasOnInit.class.getName()), "loader");
+        loader.setDaemon(true);
+        loader.start();
+        Thread.sleep(100);
+        INIT_PROCEED.countDown();
+
+        initializer.join(5_000);
+        loader.join(5_000);
+        assertFalse(initializer.isAlive());
+        assertFalse(loader.isAlive());
+        assertEquals(AddsAliasOnInit.class, CLASS_ALIASES.forName("addsAliasOnInit"));
+    }
+
     /**
      * On Windows this would cause a NoClassDefFoundError
      */
@@ -84,6 +126,22 @@ public class ClassAliasPoolTest extends CoreTestCommon {
         assertThrows(ClassNotFoundRuntimeException.class, () -> CLASS_ALIASES.forName(TestEnum.class.getName().toLowerCase()));
     }
 
+    // outside AddsAliasOnInit so waiting on them doesn't wait for its initialization
+    static final CountDownLatch INIT_STARTED = new CountDownLatch(1);
+    static final CountDownLatch INIT_PROCEED = new CountDownLatch(1);
+
+    static final class AddsAliasOnInit {
+        static {
+            INIT_STARTED.countDown();
+            try {
+                INIT_PROCEED.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            CLASS_ALIASES.addAlias(AddsAliasOnInit.class, "addsAliasOnInit");
+        }
+    }
+
     enum TestEnum {
         FOO {
             @Override
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.pool;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
+
+public class ClockParsingCacheTest extends CoreTestCommon {
+
+    @Test
+    public void intern() {
+        ClockParsingCache<BigDecimal> pc = new ClockParsingCache<>(128, BigDecimal::new);
+        BigDecimal bd1 = pc.intern("1.234");
+        BigDecimal bd2 = pc.intern("12.234");
+        assertNotEquals(bd1, bd2);
+        assertSame(bd1, pc.intern(new StringBuilder("1.234")));
+        assertNull(pc.intern((CharSequence) null));
+
+        byte[] bytes = "1.234".getBytes(StandardCharsets.ISO_8859_1);
+        assertSame(bd1, pc.intern(bytes, 0, bytes.length));
+        long address = MEMORY.allocate(bytes.length);
+        try {
+            MEMORY.copyMemory(bytes, 0, address, bytes.length);
+            assertSame(bd1, pc.intern(address, bytes.length));
+        } finally {
+            MEMORY.freeMemory(address, bytes.length);
+        }
+        assertEquals(3, pc.hits());
+        assertEquals(2, pc.misses());
+        assertEquals(2, pc.valueCount());
+    }
+
+    @Test
+    public void hotEntriesSurviveOneOffValues() {
+        ClockParsingCache<BigDecimal> pc = new ClockParsingCache<>(128, BigDecimal::new);
+        long hotLookups = 0, hotHits = 0;
+        for (int j = 0; j < 100; j++) {
+            final long hits = pc.hits();
+            for (int i = 0; i < 32; i++)
+                pc.intern("" + i);
+            if (j > 0) {
+                hotLookups += 32;
+                hotHits += pc.hits() - hits;
+            }
+            // a burst of values seen only once
+            for (int i = 0; i < 64; i++)
+                pc.intern("0." + j + "" + i);
+        }
+        assertTrue(pc.evictions() > 0);
+        // the one-off values are evicted in preference to the hot values
+        assertTrue("hotHits: " + hotHits, hotHits > hotLookups * 0.85);
+        assertEquals(128, pc.capacity());
+    }
+
+    @Test
+    public void growsWhenMissRateIsHigh() {
+        ClockParsingCache<BigDecimal> pc = new ClockParsingCache<>(128, 1024, 0.25, BigDecimal::new);
+        for (int j = 0; j < 20; j++)
+            for (int i = 0; i < 600; i++)
+                pc.intern("" + i);
+        assertEquals(1024, pc.capacity());
+        pc.resetCounters();
+        for (int i = 0; i < 600; i++)
+            pc.intern("" + i);
+        assertTrue(pc.missRate() < 0.25);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badMissRate() {
+        new ClockParsingCache<>(128, 256, 0, BigDecimal::new);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.pool;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentStringInternerTest extends CoreTestCommon {
+
+    @Test
+    public void counters() {
+        ConcurrentStringInterner si = new ConcurrentStringInterner(128);
+        String a = si.intern(new StringBuilder("hello"));
+        assertSame(a, si.intern("hello"));
+        assertNull(si.intern(null));
+        assertEquals(1, si.hits());
+        assertEquals(1, si.misses());
+        assertEquals(0.5, si.missRate(), 0.0);
+
+        for (int i = 0; i < 1000; i++)
+            assertEquals("" + i, si.intern("" + i));
+        assertTrue(si.evictions() > 0);
+        assertEquals(1001 - si.evictions(), si.valueCount());
+        // not adaptive
+        assertEquals(128, si.capacity());
+
+        si.resetCounters();
+        assertEquals(0, si.misses());
+        assertEquals(0.0, si.missRate(), 0.0);
+    }
+
+    @Test
+    public void growsWhenMissRateIsHigh() {
+        ConcurrentStringInterner si = new ConcurrentStringInterner(128, 1024, 0.25);
+        for (int j = 0; j < 20; j++)
+            for (int i = 0; i < 600; i++)
+                si.intern("key-" + i);
+        assertEquals(1024, si.capacity());
+        si.resetCounters();
+        for (int i = 0; i < 600; i++)
+            si.intern("key-" + i);
+        assertTrue(si.missRate() < 0.25);
+    }
+
+    @Test
+    public void doesNotGrowWhenMissRateIsLow() {
+        ConcurrentStringInterner si = new ConcurrentStringInterner(128, 1024, 0.9);
+        for (int j = 0; j < 20; j++)
+            for (int i = 0; i < 200; i++)
+                si.intern("key-" + i);
+        assertEquals(128, si.capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badMaxCapacity() {
+        new ConcurrentStringInterner(256, 128, 0.5);
+    }
+
+    @Test
+    public void concurrentInterning() throws InterruptedException {
+        ConcurrentStringInterner si = new ConcurrentStringInterner(256, 4096, 0.1);
+        AtomicReference<String> error = new AtomicReference<>();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < 100_000; i++) {
+                    sb.setLength(0);
+                    sb.append("s").append(i % 3000);
+                    String s = si.intern(sb);
+                    if (!s.contentEquals(sb))
+                        error.set(sb + " != " + s);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        assertNull(error.get());
+        assertEquals(800_000, si.hits() + si.misses());
+        assertTrue(si.capacity() > 256);
+    }
+}
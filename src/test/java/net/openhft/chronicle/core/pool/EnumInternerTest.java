@@ -22,9 +22,11 @@ import net.openhft.chronicle.core.Maths;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.stream.Stream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class EnumInternerTest {
 
@@ -61,6 +63,61 @@ public class EnumInternerTest {
                 });
     }
 
+    @Test
+    public void internFromNativeMemory() {
+        final EnumInterner<TestEnum> testEnum = new EnumInterner<>(TestEnum.class);
+        long address = MEMORY.allocate(16);
+        try {
+            for (TestEnum value : TestEnum.values()) {
+                byte[] bytes = value.name().getBytes(StandardCharsets.ISO_8859_1);
+                MEMORY.copyMemory(bytes, 0, address, bytes.length);
+                assertSame(value, testEnum.intern(address, bytes.length));
+                assertSame(value, testEnum.intern(new StringBuilder(value.name())));
+            }
+            assertNull(testEnum.intern(address, 0));
+            MEMORY.copyMemory("zz".getBytes(StandardCharsets.ISO_8859_1), 0, address, 2);
+            assertThrows(IllegalArgumentException.class, () -> testEnum.intern(address, 2));
+        } finally {
+            MEMORY.freeMemory(address, 16);
+        }
+    }
+
+    @Test
+    public void dynamicEnumFromCharSequence() {
+        final EnumInterner<YesNo> yesNo = new EnumInterner<>(YesNo.class);
+        try {
+            assertSame(YesNo.Yes, yesNo.intern(new StringBuilder("Yes")));
+            YesNo maybe = yesNo.intern(new StringBuilder("Maybe"));
+            assertEquals("Maybe", maybe.name());
+            // found in the rebuilt table
+            assertSame(maybe, EnumCache.of(YesNo.class).valueOf(new StringBuilder("Maybe")));
+            // only rebuilt once more than a quarter as many values have been added
+            DynamicEnumClass<YesNo> dynamic = (DynamicEnumClass<YesNo>) EnumCache.of(YesNo.class);
+            for (int i = 0; i < 17; i++)
+                dynamic.valueOf("Value" + i);
+            PerfectHashTable<YesNo> names = dynamic.names();
+            assertEquals(20, names.size());
+            for (int i = 0; i < 5; i++) {
+                YesNo added = dynamic.valueOf("Added" + i);
+                // found in eMap without rebuilding
+                assertSame(added, dynamic.valueOf(new StringBuilder("Added" + i)));
+                assertSame(names, dynamic.names());
+            }
+            dynamic.valueOf("Unsure");
+            assertNotSame(names, dynamic.names());
+            assertEquals(26, dynamic.names().size());
+            long address = MEMORY.allocate(8);
+            try {
+                MEMORY.copyMemory("Maybe".getBytes(StandardCharsets.ISO_8859_1), 0, address, 5);
+                assertSame(maybe, yesNo.intern(address, 5));
+            } finally {
+                MEMORY.freeMemory(address, 8);
+            }
+        } finally {
+            ((DynamicEnumClass<YesNo>) EnumCache.of(YesNo.class)).reset();
+        }
+    }
+
     enum TestEnum {
         c1, cq, db, ho, id, k6, kv, la, m5, mu, nb, qg, s8, sx, uz, va, yj
     }
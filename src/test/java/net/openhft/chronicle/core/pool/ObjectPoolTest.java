@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.pool;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import net.openhft.chronicle.core.StackTrace;
+import net.openhft.chronicle.core.io.Resettable;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ObjectPoolTest extends CoreTestCommon {
+
+    static final class Dto implements Resettable {
+        long value;
+        boolean inUse;
+
+        @Override
+        public void reset() {
+            value = 0;
+        }
+    }
+
+    @Test
+    public void reusesAndResets() {
+        ObjectPool<Dto> pool = new ObjectPool<>(Dto::new, 4, 16, false);
+        Dto dto = pool.acquire();
+        dto.value = 123;
+        pool.release(dto);
+        Dto dto2 = pool.acquire();
+        assertSame(dto, dto2);
+        assertEquals(0, dto2.value);
+        assertEquals(1, pool.created());
+    }
+
+    @Test
+    public void magazinesMoveBetweenThreads() throws InterruptedException {
+        ObjectPool<Dto> pool = new ObjectPool<>(Dto::new, 4, 16, false);
+        Set<Dto> released = Collections.newSetFromMap(new IdentityHashMap<>());
+        Thread t = new Thread(() -> {
+            Dto[] dtos = new Dto[9];
+            for (int i = 0; i < dtos.length; i++)
+                dtos[i] = pool.acquire();
+            for (Dto dto : dtos) {
+                pool.release(dto);
+                released.add(dto);
+            }
+        });
+        t.start();
+        t.join();
+        // two full magazines were pushed to the depot, one object is left with the other thread
+        assertEquals(8, pool.depotCount());
+        for (int i = 0; i < 8; i++)
+            assertTrue(released.contains(pool.acquire()));
+        assertEquals(0, pool.depotCount());
+        assertFalse(released.contains(pool.acquire()));
+        assertEquals(10, pool.created());
+    }
+
+    @Test
+    public void retainedIsBounded() {
+        ObjectPool<Dto> pool = new ObjectPool<>(Dto::new, 4, 8, false);
+        Dto[] dtos = new Dto[20];
+        for (int i = 0; i < dtos.length; i++)
+            dtos[i] = pool.acquire();
+        for (Dto dto : dtos)
+            pool.release(dto);
+        assertEquals(8, pool.depotCount());
+        for (int i = 0; i < 12; i++)
+            pool.acquire();
+        assertEquals(20, pool.created());
+        // only 8 in the depot and up to 4 in this thread's magazine were kept
+        pool.acquire();
+        assertEquals(21, pool.created());
+    }
+
+    @Test
+    public void doubleReleaseIsDetected() {
+        ObjectPool<Dto> pool = new ObjectPool<>(Dto::new, 4, 16, true);
+        Dto dto = pool.acquire();
+        pool.release(dto);
+        try {
+            pool.release(dto);
+            fail();
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getCause() instanceof StackTrace);
+        }
+        // acquiring it again allows it to be released again
+        assertSame(dto, pool.acquire());
+        pool.release(dto);
+    }
+
+    @Test
+    public void concurrentAcquireRelease() throws InterruptedException {
+        ObjectPool<Dto> pool = new ObjectPool<>(Dto::new, 8, 256, true);
+        AtomicReference<String> error = new AtomicReference<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                Dto[] dtos = new Dto[20];
+                for (int j = 0; j < 20_000; j++) {
+                    for (int i = 0; i < dtos.length; i++) {
+                        Dto dto = pool.acquire();
+                        synchronized (dto) {
+                            if (dto.inUse || dto.value != 0)
+                                error.set("acquired an object in use");
+                            dto.inUse = true;
+                            dto.value = i + 1;
+                        }
+                        dtos[i] = dto;
+                    }
+                    for (Dto dto : dtos) {
+                        synchronized (dto) {
+                            dto.inUse = false;
+                        }
+                        pool.release(dto);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        assertNull(error.get());
+        assertTrue(pool.created() < 20_000);
+    }
+}
@@ -23,7 +23,9 @@ import org.jetbrains.annotations.Nullable;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
 import static org.junit.Assert.*;
 
 public class ParsingCacheTest {
@@ -37,4 +39,21 @@ public class ParsingCacheTest {
         assertSame(bd1, bd1b);
         assertEquals(2, pc.valueCount());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void internBytes() {
+        @NotNull ParsingCache<BigDecimal> pc = new ParsingCache<>(128, BigDecimal::new);
+        BigDecimal bd1 = pc.intern("1.234");
+        byte[] bytes = "x1.234".getBytes(StandardCharsets.ISO_8859_1);
+        assertSame(bd1, pc.intern(bytes, 1, 5));
+        long address = MEMORY.allocate(bytes.length);
+        try {
+            MEMORY.copyMemory(bytes, 0, address, bytes.length);
+            assertSame(bd1, pc.intern(address + 1, 5));
+            assertEquals(new BigDecimal("1.23"), pc.intern(address + 1, 4));
+            assertEquals(2, pc.valueCount());
+        } finally {
+            MEMORY.freeMemory(address, bytes.length);
+        }
+    }
+}
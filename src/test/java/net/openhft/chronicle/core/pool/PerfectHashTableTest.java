@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.pool;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
+
+public class PerfectHashTableTest extends CoreTestCommon {
+
+    @Test
+    public void everyNameIsFound() {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        for (int i = 0; i < 5000; i++)
+            map.put("name" + i, i);
+        PerfectHashTable<Integer> table = PerfectHashTable.of(map);
+        assertNotNull(table);
+        assertEquals(5000, table.size());
+        StringBuilder sb = new StringBuilder();
+        long address = MEMORY.allocate(16);
+        try {
+            for (Map.Entry<String, Integer> entry : map.entrySet()) {
+                sb.setLength(0);
+                sb.append(entry.getKey());
+                assertEquals(entry.getValue(), table.get(sb));
+                byte[] bytes = entry.getKey().getBytes(StandardCharsets.ISO_8859_1);
+                MEMORY.copyMemory(bytes, 0, address, bytes.length);
+                assertEquals(entry.getValue(), table.get(address, bytes.length));
+            }
+        } finally {
+            MEMORY.freeMemory(address, 16);
+        }
+        assertNull(table.get("name5000"));
+        assertNull(table.get(""));
+    }
+
+    @Test
+    public void empty() {
+        PerfectHashTable<Integer> table = PerfectHashTable.of(new LinkedHashMap<>());
+        assertNotNull(table);
+        assertNull(table.get("a"));
+    }
+}
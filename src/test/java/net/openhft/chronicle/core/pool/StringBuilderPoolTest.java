@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.pool;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StringBuilderPoolTest extends CoreTestCommon {
+
+    @Test
+    public void nested() {
+        StringBuilderPool pool = new StringBuilderPool(2, 1024);
+        StringBuilder outer = pool.acquire();
+        outer.append("outer");
+        StringBuilder inner = pool.acquire();
+        assertNotSame(outer, inner);
+        inner.append("inner");
+        assertEquals("outer", outer.toString());
+        pool.release(inner);
+        pool.release(outer);
+        assertEquals(0, pool.fallbacks());
+
+        // reused, most recently released first
+        StringBuilder sb1 = pool.acquire();
+        StringBuilder sb2 = pool.acquire();
+        assertSame(outer, sb1);
+        assertSame(inner, sb2);
+        assertEquals(0, sb1.length());
+
+        // deeper than the stack
+        StringBuilder sb3 = pool.acquire();
+        assertEquals(1, pool.fallbacks());
+        pool.release(sb3);
+        pool.release(sb2);
+        // the stack is full so this is discarded
+        pool.release(sb1);
+        assertSame(sb2, pool.acquire());
+        assertSame(sb3, pool.acquire());
+    }
+
+    @Test
+    public void doubleReleaseIsRejected() {
+        StringBuilderPool pool = new StringBuilderPool(2, 1024);
+        StringBuilder sb = pool.acquire();
+        pool.release(sb);
+        assertThrows(IllegalStateException.class, () -> pool.release(sb));
+        assertNotSame(pool.acquire(), pool.acquire());
+    }
+
+    @Test
+    public void trimsLargeBuilders() {
+        StringBuilderPool pool = new StringBuilderPool(1, 1024);
+        StringBuilder sb = pool.acquire();
+        for (int i = 0; i < 2000; i++)
+            sb.append('x');
+        pool.release(sb);
+        StringBuilder sb2 = pool.acquire();
+        assertNotSame(sb, sb2);
+        assertTrue(sb2.capacity() <= 1024);
+        pool.release(sb2);
+        assertSame(sb2, pool.acquire());
+    }
+
+    @Test
+    public void perThread() throws InterruptedException {
+        StringBuilderPool pool = new StringBuilderPool(1, 1024);
+        StringBuilder sb = pool.acquire();
+        pool.release(sb);
+        StringBuilder[] other = new StringBuilder[1];
+        Thread t = new Thread(() -> other[0] = pool.acquire());
+        t.start();
+        t.join();
+        assertNotSame(sb, other[0]);
+        assertEquals(0, pool.fallbacks());
+    }
+
+    @Test
+    public void acquireStringBuilder() {
+        StringBuilderPool pool = new StringBuilderPool();
+        StringBuilder sb = pool.acquireStringBuilder();
+        sb.append("hello");
+        assertSame(sb, pool.acquireStringBuilder());
+        assertEquals(0, sb.length());
+    }
+
+    @Test
+    public void acquireStringBuilderTrimsLargeBuilders() {
+        StringBuilderPool pool = new StringBuilderPool(1, 1024);
+        StringBuilder sb = pool.acquireStringBuilder();
+        for (int i = 0; i < 2000; i++)
+            sb.append('x');
+        StringBuilder sb2 = pool.acquireStringBuilder();
+        assertNotSame(sb, sb2);
+        assertTrue(sb2.capacity() <= 1024);
+        assertEquals(0, sb2.length());
+        assertSame(sb2, pool.acquireStringBuilder());
+    }
+}
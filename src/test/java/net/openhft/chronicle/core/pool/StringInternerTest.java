@@ -21,7 +21,10 @@ package net.openhft.chronicle.core.pool;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import java.nio.charset.StandardCharsets;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
 
 public class StringInternerTest {
 
@@ -77,4 +80,29 @@ public class StringInternerTest {
         return sb.toString();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testInternBytes() {
+        @NotNull StringInterner si = new StringInterner(128);
+        long address = MEMORY.allocate(16);
+        try {
+            for (int i = 0; i < 100; i++) {
+                String expected = "" + i;
+                byte[] bytes = ("-" + expected).getBytes(StandardCharsets.ISO_8859_1);
+                String s = si.intern(bytes, 1, expected.length());
+                assertEquals(expected, s);
+                // 7-bit text shares the slots used by intern(CharSequence)
+                assertSame(s, si.intern(expected));
+                MEMORY.copyMemory(bytes, 0, address, bytes.length);
+                assertSame(s, si.intern(address + 1, expected.length()));
+            }
+            // Latin-1 is not 7-bit but still matches
+            byte[] latin1 = "caf\u00e9".getBytes(StandardCharsets.ISO_8859_1);
+            String cafe = si.intern(latin1, 0, latin1.length);
+            assertEquals("caf\u00e9", cafe);
+            assertSame(cafe, si.intern(latin1, 0, latin1.length));
+            assertNotEquals("caf\u00e8", si.intern(latin1, 0, latin1.length));
+        } finally {
+            MEMORY.freeMemory(address, 16);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.util;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import org.junit.Test;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
+
+public class ConcurrentBitSetTest extends CoreTestCommon {
+
+    @Test
+    public void setClearAndScan() {
+        try (ConcurrentBitSet bits = new ConcurrentBitSet(200)) {
+            assertEquals(-1, bits.nextSetBit(0));
+            assertEquals(0, bits.nextClearBit(0));
+            assertFalse(bits.set(3));
+            assertTrue(bits.set(3));
+            assertFalse(bits.set(64));
+            assertFalse(bits.set(199));
+            assertTrue(bits.get(64));
+            assertEquals(3, bits.nextSetBit(0));
+            assertEquals(3, bits.nextSetBit(3));
+            assertEquals(64, bits.nextSetBit(4));
+            assertEquals(199, bits.nextSetBit(65));
+            assertEquals(-1, bits.nextSetBit(200));
+            assertEquals(3, bits.cardinality());
+
+            assertTrue(bits.clear(64));
+            assertFalse(bits.clear(64));
+            assertFalse(bits.flip(5));
+            assertTrue(bits.get(5));
+            assertEquals(199, bits.nextSetBit(6));
+
+            for (int i = 0; i < 199; i++)
+                bits.set(i);
+            assertEquals(-1, bits.nextClearBit(0));
+            bits.clear(130);
+            assertEquals(130, bits.nextClearBit(0));
+            assertEquals(199, bits.cardinality());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfBounds() {
+        try (ConcurrentBitSet bits = new ConcurrentBitSet(64)) {
+            bits.set(64);
+        }
+    }
+
+    @Test
+    public void wrapsMemory() {
+        long size = ConcurrentBitSet.sizeInBytes(100);
+        assertEquals(16, size);
+        long address = MEMORY.allocate(size);
+        try {
+            MEMORY.setMemory(address, size, (byte) -1);
+            try (ConcurrentBitSet bits = ConcurrentBitSet.wrap(address, 100)) {
+                // the bits past the end are ignored
+                assertEquals(100, bits.cardinality());
+                assertEquals(-1, bits.nextClearBit(0));
+                bits.clear(70);
+                assertEquals(70, bits.nextClearBit(0));
+            }
+            assertEquals(~(1L << 6), MEMORY.readLong(address + 8));
+        } finally {
+            MEMORY.freeMemory(address, size);
+        }
+    }
+
+    @Test
+    public void concurrentSetAndClear() throws InterruptedException {
+        final int threads = 4, size = 1 << 16;
+        try (ConcurrentBitSet bits = new ConcurrentBitSet(size)) {
+            Thread[] ts = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                final int id = t;
+                // each thread owns every threads-th bit so updates to the same word contend
+                ts[t] = new Thread(() -> {
+                    for (int i = id; i < size; i += threads)
+                        assertFalse(bits.set(i));
+                    for (int i = id; i < size; i += 2 * threads)
+                        assertTrue(bits.clear(i));
+                });
+                ts[t].start();
+            }
+            for (Thread t : ts)
+                t.join();
+            assertEquals(size / 2, bits.cardinality());
+            for (int i = 0; i < size; i++)
+                assertEquals(i % (2 * threads) >= threads, bits.get(i));
+        }
+    }
+}
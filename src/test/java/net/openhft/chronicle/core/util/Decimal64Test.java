@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.util;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
+
+public class Decimal64Test extends CoreTestCommon {
+
+    private static final RoundingMode[] MODES = {
+            RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR,
+            RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN};
+
+    private static BigDecimal big(Decimal64 d) {
+        return BigDecimal.valueOf(d.mantissa(), d.scale());
+    }
+
+    private static long randomMantissa(Random rand) {
+        switch (rand.nextInt(4)) {
+            case 0:
+                return rand.nextInt(2000) - 1000;
+            case 1:
+                return rand.nextInt();
+            case 2:
+                return rand.nextLong() >> rand.nextInt(64);
+            default:
+                return rand.nextLong();
+        }
+    }
+
+    // the expected result, or null if it should throw ArithmeticException
+    private static BigDecimal expected(BigDecimal value, int scale, RoundingMode mode) {
+        BigDecimal bd = value.setScale(scale, mode);
+        return bd.unscaledValue().bitLength() > 63 ? null : bd;
+    }
+
+    private static void assertResult(BigDecimal expected, Decimal64 actual) {
+        assertEquals(expected.unscaledValue().longValue(), actual.mantissa());
+        assertEquals(expected.scale(), actual.scale());
+    }
+
+    @Test
+    public void addSubtract() {
+        Decimal64 d = new Decimal64(125, 2);
+        assertEquals("1.25", d.toString());
+        assertEquals("3.250", d.add(new Decimal64(2000, 3)).toString());
+        assertEquals("-6.750", d.subtract(new Decimal64(10, 0)).toString());
+        assertEquals("-0.00000001", new Decimal64(-1, 8).toString());
+        try {
+            new Decimal64(Long.MAX_VALUE, 0).add(new Decimal64(1, 0));
+            fail();
+        } catch (ArithmeticException expected) {
+            // overflow
+        }
+    }
+
+    @Test
+    public void multiplyDivideRandom() {
+        Random rand = new Random(1);
+        Decimal64 a = new Decimal64();
+        Decimal64 b = new Decimal64();
+        for (int i = 0; i < 200_000; i++) {
+            a.set(randomMantissa(rand), rand.nextInt(Decimal64.MAX_SCALE + 1));
+            b.set(randomMantissa(rand), rand.nextInt(Decimal64.MAX_SCALE + 1));
+            final int scale = rand.nextInt(Decimal64.MAX_SCALE + 1);
+            final RoundingMode mode = MODES[rand.nextInt(MODES.length)];
+            final BigDecimal ba = big(a), bb = big(b);
+
+            BigDecimal expected = expected(ba.multiply(bb), scale, mode);
+            checkResult(expected, () -> new Decimal64().set(a).multiply(b, scale, mode), ba + " * " + bb);
+
+            if (b.mantissa() != 0) {
+                // truncated well beyond the scale, plus a little more away from zero if anything was dropped
+                BigDecimal quotient = ba.divide(bb, scale + 40, RoundingMode.DOWN);
+                if (quotient.multiply(bb).compareTo(ba) != 0)
+                    quotient = quotient.add(BigDecimal.valueOf(ba.signum() * bb.signum(), scale + 41));
+                expected = expected(quotient, scale, mode);
+                checkResult(expected, () -> new Decimal64().set(a).divide(b, scale, mode), ba + " / " + bb);
+            }
+
+            expected = expected(ba, scale, mode);
+            checkResult(expected, () -> new Decimal64().set(a).setScale(scale, mode), ba + " setScale " + scale);
+
+            assertEquals(ba.compareTo(bb), a.compareTo(b));
+        }
+    }
+
+    private static void checkResult(BigDecimal expected, Supplier<Decimal64> op, String desc) {
+        try {
+            Decimal64 actual = op.get();
+            assertNotNull(desc + " should overflow, was " + actual, expected);
+            assertEquals(desc, expected.unscaledValue().longValue(), actual.mantissa());
+            assertEquals(desc, expected.scale(), actual.scale());
+        } catch (ArithmeticException e) {
+            assertNull(desc + " threw " + e, expected);
+        }
+    }
+
+    @Test
+    public void roundingModes() {
+        // -2.5, -1.5, ... 2.5 to a scale of 0
+        for (long m = -25; m <= 25; m += 5) {
+            BigDecimal value = BigDecimal.valueOf(m, 1);
+            for (RoundingMode mode : MODES)
+                assertResult(value.setScale(0, mode), new Decimal64(m, 1).setScale(0, mode));
+        }
+        try {
+            new Decimal64(25, 1).setScale(0, RoundingMode.UNNECESSARY);
+            fail();
+        } catch (ArithmeticException expected) {
+            // rounding necessary
+        }
+        assertEquals("3", new Decimal64(30, 1).setScale(0, RoundingMode.UNNECESSARY).toString());
+    }
+
+    @Test
+    public void fromDouble() {
+        Random rand = new Random(2);
+        Decimal64 d = new Decimal64();
+        for (int i = 0; i < 100_000; i++) {
+            double v = i % 2 == 0
+                    ? (rand.nextDouble() - 0.5) * Math.pow(10, rand.nextInt(40) - 20)
+                    : Double.longBitsToDouble(rand.nextLong());
+            if (Double.isNaN(v) || Double.isInfinite(v))
+                continue;
+            int scale = rand.nextInt(Decimal64.MAX_SCALE + 1);
+            RoundingMode mode = MODES[rand.nextInt(MODES.length)];
+            BigDecimal expected = expected(new BigDecimal(v), scale, mode);
+            checkResult(expected, () -> d.set(v, scale, mode), Double.toString(v));
+        }
+        assertEquals("0.1000000000", d.set(0.1, 10, RoundingMode.HALF_EVEN).toString());
+        assertEquals("-1.13", d.set(-1.125, 2, RoundingMode.HALF_UP).toString());
+        assertEquals("-1.12", d.set(-1.125, 2, RoundingMode.HALF_EVEN).toString());
+        assertEquals(1, d.set(Double.MIN_VALUE, 18, RoundingMode.UP).mantissa());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromNaN() {
+        new Decimal64().set(Double.NaN, 2, RoundingMode.HALF_UP);
+    }
+
+    @Test
+    public void toDouble() {
+        Random rand = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            long m = randomMantissa(rand);
+            int scale = rand.nextInt(Decimal64.MAX_SCALE + 1);
+            assertEquals(BigDecimal.valueOf(m, scale).doubleValue(), new Decimal64(m, scale).toDouble(), Math.ulp(BigDecimal.valueOf(m, scale).doubleValue()));
+        }
+        assertEquals(0.1, new Decimal64(1, 1).toDouble(), 0.0);
+        assertEquals(-12.5, new Decimal64(-1250, 2).toDouble(), 0.0);
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        Decimal64 a = new Decimal64(1500, 3);
+        Decimal64 b = new Decimal64(15, 1);
+        assertEquals(0, a.compareTo(b));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, new Decimal64(15, 2));
+        assertTrue(new Decimal64(-1, 18).compareTo(new Decimal64(Long.MIN_VALUE, 0)) > 0);
+        assertTrue(new Decimal64(Long.MAX_VALUE, 0).compareTo(new Decimal64(Long.MAX_VALUE, 18)) > 0);
+    }
+
+    @Test
+    public void appendTo() {
+        long address = MEMORY.allocate(32);
+        try {
+            Decimal64 d = new Decimal64(-1250, 3);
+            long end = d.appendTo(address);
+            StringBuilder sb = new StringBuilder();
+            for (long i = address; i < end; i++)
+                sb.append((char) MEMORY.readByte(i));
+            assertEquals(d.toString(), sb.toString());
+        } finally {
+            MEMORY.freeMemory(address, 32);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016-2022 chronicle.software
+ *
+ *       https://chronicle.software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.core.util;
+
+import net.openhft.chronicle.core.CoreTestCommon;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
+import static org.junit.Assert.*;
+
+public class NativeLongLongMapTest extends CoreTestCommon {
+
+    @Test
+    public void putGetRemove() {
+        try (NativeLongLongMap map = new NativeLongLongMap(16, -1)) {
+            assertEquals(-1, map.get(1));
+            assertEquals(-1, map.put(1, 10));
+            assertEquals(10, map.put(1, 11));
+            assertEquals(-1, map.put(0, 0));
+            assertEquals(-1, map.put(Long.MIN_VALUE, 12));
+            assertEquals(3, map.size());
+            assertEquals(11, map.get(1));
+            assertEquals(0, map.get(0));
+            assertEquals(12, map.get(Long.MIN_VALUE));
+            assertTrue(map.containsKey(0));
+
+            assertEquals(11, map.remove(1));
+            assertEquals(-1, map.remove(1));
+            assertEquals(0, map.remove(0));
+            assertFalse(map.containsKey(0));
+            assertEquals(1, map.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cannotPutMissingValue() {
+        try (NativeLongLongMap map = new NativeLongLongMap(16, Long.MIN_VALUE)) {
+            map.put(1, Long.MIN_VALUE);
+        }
+    }
+
+    @Test
+    public void sameAsHashMap() {
+        final long used = MEMORY.nativeMemoryUsed();
+        Random rand = new Random(1);
+        Map<Long, Long> expected = new HashMap<>();
+        try (NativeLongLongMap map = new NativeLongLongMap(16, Long.MIN_VALUE)) {
+            for (int i = 0; i < 200_000; i++) {
+                // a small key range so removes and overwrites hit existing keys
+                long key = rand.nextInt(20_000) * 1024L;
+                long value = rand.nextLong() >>> 1;
+                if (rand.nextInt(4) == 0) {
+                    Long prev = expected.remove(key);
+                    assertEquals(prev == null ? Long.MIN_VALUE : prev, map.remove(key));
+                } else {
+                    Long prev = expected.put(key, value);
+                    assertEquals(prev == null ? Long.MIN_VALUE : prev, map.put(key, value));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertTrue(map.capacity() > 16);
+            for (long key = 0; key < 20_000 * 1024L; key += 1024) {
+                Long value = expected.get(key);
+                assertEquals(value == null ? Long.MIN_VALUE : value, map.get(key));
+            }
+        }
+        assertEquals(used, MEMORY.nativeMemoryUsed());
+    }
+
+    @Test
+    public void resizesIncrementally() {
+        try (NativeLongLongMap map = new NativeLongLongMap(8, -1)) {
+            final long capacity = map.capacity();
+            for (long i = 1; i <= capacity / 2; i++)
+                map.put(i, i);
+            assertEquals(capacity, map.capacity());
+            map.put(-1, 1);
+            assertEquals(2 * capacity, map.capacity());
+            assertTrue(map.isResizing());
+            for (long i = 1; i <= capacity / 2; i++)
+                assertEquals(i, map.get(i));
+            // removing entries which are still in the old table
+            for (long i = 1; i <= capacity / 2; i += 2)
+                assertEquals(i, map.remove(i));
+            for (long i = 1; i <= capacity / 2; i++)
+                assertEquals(i % 2 == 0 ? i : -1, map.get(i));
+            while (map.isResizing())
+                map.put(-1, 1);
+            for (long i = 1; i <= capacity / 2; i++)
+                assertEquals(i % 2 == 0 ? i : -1, map.get(i));
+        }
+    }
+
+    @Test
+    public void replacedTablesAreFreed() {
+        final long used = MEMORY.nativeMemoryUsed();
+        try (NativeLongLongMap map = new NativeLongLongMap(16, -1)) {
+            for (long i = 1; i <= 100_000; i++) {
+                map.put(i, i);
+                assertEquals(i, map.get(i));
+            }
+            long key = 100_000;
+            while (map.isResizing())
+                map.put(++key, key);
+            // a few more modifications free the previous table, even though the map has stopped growing
+            for (long i = 1; i <= 2 * NativeLongLongMap.FREE_RETIRED_INTERVAL; i++)
+                map.put(i, i * 2);
+            final long tableSize = map.capacity() << NativeLongLongMap.ENTRY_SHIFT;
+            assertEquals("only the current table of " + tableSize + " bytes remains",
+                    tableSize, MEMORY.nativeMemoryUsed() - used);
+        }
+        assertEquals(used, MEMORY.nativeMemoryUsed());
+    }
+
+    @Test
+    public void readersDuringWrites() throws InterruptedException {
+        try (NativeLongLongMap map = new NativeLongLongMap(16, -1)) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicReference<String> error = new AtomicReference<>();
+            // even keys are never removed and always map to key * 2
+            Thread reader = new Thread(() -> {
+                Random rand = new Random();
+                while (running.get()) {
+                    long key = rand.nextInt(5_000) * 2L + 2;
+                    long value = map.get(key);
+                    if (value != -1 && value != key * 2)
+                        error.set("key: " + key + ", value: " + value);
+                }
+            });
+            reader.start();
+            for (long i = 2; i <= 10_000; i += 2) {
+                map.put(i, i * 2);
+                map.put(i + 1, i);
+                if (i > 100)
+                    map.remove(i - 99);
+            }
+            running.set(false);
+            reader.join();
+            assertNull(error.get());
+            for (long i = 2; i <= 10_000; i += 2)
+                assertEquals(i * 2, map.get(i));
+        }
+    }
+
+    @Test
+    public void concurrentPuts() throws InterruptedException {
+        final int threads = 4, perThread = 10_000;
+        try (NativeLongLongMap map = new NativeLongLongMap(threads * perThread, -1, true)) {
+            final long capacity = map.capacity();
+            Thread[] ts = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                final int id = t;
+                ts[t] = new Thread(() -> {
+                    for (long i = 0; i < perThread; i++) {
+                        // all threads put the shared keys, each thread has its own keys too
+                        map.put(i + 1, i);
+                        map.put((id + 1) * 1_000_000L + i, id);
+                    }
+                });
+                ts[t].start();
+            }
+            for (Thread t : ts)
+                t.join();
+            assertEquals(capacity, map.capacity());
+            assertEquals(perThread + threads * perThread, map.size());
+            for (long i = 0; i < perThread; i++) {
+                assertEquals(i, map.get(i + 1));
+                for (int id = 0; id < threads; id++)
+                    assertEquals(id, map.get((id + 1) * 1_000_000L + i));
+            }
+            assertEquals(0, map.remove(1));
+            assertEquals(-1, map.get(1));
+            assertEquals(-1, map.put(1, 1));
+            assertEquals(perThread + threads * perThread, map.size());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void concurrentPutsFull() {
+        try (NativeLongLongMap map = new NativeLongLongMap(8, -1, true)) {
+            for (long i = 1; i <= map.capacity(); i++)
+                map.put(i, i);
+        }
+    }
+}
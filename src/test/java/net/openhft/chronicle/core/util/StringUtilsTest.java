@@ -23,8 +23,12 @@ import net.openhft.chronicle.core.Maths;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.LongSupplier;
 
+import static net.openhft.chronicle.core.UnsafeMemory.MEMORY;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.*;
@@ -120,6 +124,128 @@ public class StringUtilsTest {
         assertEquals(-1.0, StringUtils.parseDouble("-1"), 0);
     }
 
+    @Test
+    public void parseDoubleRoundTrip() {
+        final long used = MEMORY.nativeMemoryUsed();
+        final long address = MEMORY.allocate(64);
+        try {
+            Random rand = new Random(1);
+            for (int i = 0; i < 200_000; i++) {
+                double d;
+                switch (i % 4) {
+                    case 0:
+                        d = Double.longBitsToDouble(rand.nextLong());
+                        break;
+                    case 1:
+                        d = rand.nextDouble();
+                        break;
+                    case 2:
+                        d = rand.nextInt(1_000_000) / 100.0;
+                        break;
+                    default:
+                        d = rand.nextLong() * Math.pow(10, rand.nextInt(40) - 20);
+                        break;
+                }
+                if (Double.isNaN(d) || Double.isInfinite(d))
+                    continue;
+                assertParseDouble(Double.toString(d), address);
+                // more significant digits than fit in a long
+                if (i % 8 == 0)
+                    assertParseDouble(new BigDecimal(d).toPlainString(), address);
+            }
+        } finally {
+            MEMORY.freeMemory(address, 64);
+        }
+        assertEquals(used, MEMORY.nativeMemoryUsed());
+    }
+
+    @Test
+    public void parseDoubleEdgeCases() {
+        for (String s : new String[]{"4.9e-324", "2.4703282292062327e-324", "2.4703282292062328e-324",
+                "2.2250738585072011e-308", "2.2250738585072014e-308", "1.7976931348623157e308",
+                "1.7976931348623158e308", "1.7976931348623159e308", "9007199254740993", "9007199254740993.0000000001",
+                "1e22", "1e23", "123456789012345678901234567890", "0.000000000000000000000000000001234",
+                "7.3177701707893310e+15", "1E-400", "1e400", "-0.0", "+12.5", "1.", ".5", "1.e5"}) {
+            assertEquals(s, Double.parseDouble(s), StringUtils.parseDouble(s), 0);
+            final byte[] bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+            assertEquals(s, Double.parseDouble(s), StringUtils.parseDouble(bytes, 0, bytes.length), 0);
+        }
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(StringUtils.parseDouble("-0")));
+        // stops at the first character which isn't part of the number
+        assertEquals(1.5, StringUtils.parseDouble("1.5,2"), 0);
+        assertEquals(15, StringUtils.parseDouble("15e"), 0);
+        assertEquals(15, StringUtils.parseDouble("15e+x"), 0);
+        assertEquals(1.5e3, StringUtils.parseDouble("1.5e3 "), 0);
+        assertEquals(Double.NEGATIVE_INFINITY, StringUtils.parseDouble("-Infinity"), 0);
+        final byte[] bytes = "[2.5]".getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(2.5, StringUtils.parseDouble(bytes, 1, 3), 0);
+        // resolved by Eisel-Lemire rather than the fallback
+        assertEquals(1.2345678901234567e-200, DoubleParser.toDouble(false, 12345678901234567L, -216), 0);
+        assertEquals(-9.87654321e250, DoubleParser.toDouble(true, 987654321L, 242), 0);
+    }
+
+    @Test
+    public void parseLongFromBytes() {
+        final long address = MEMORY.allocate(32);
+        try {
+            Random rand = new Random(1);
+            for (int i = 0; i < 100_000; i++) {
+                final long value = rand.nextLong() >> rand.nextInt(64);
+                assertParseLong(Long.toString(value), address);
+                assertParseLong("+" + value, address);
+                assertParseLong(Integer.toString((int) value), address);
+            }
+            for (String s : new String[]{"0", "-0", "+0", "00000000000000000000000123", "-9223372036854775808", "9223372036854775807",
+                    "9223372036854775808", "-9223372036854775809", "99999999999999999999", "18446744073709551616",
+                    "2147483647", "2147483648", "-2147483648", "-2147483649",
+                    "", "-", "+", "--1", "1-", "12345678a", "1234567/", "123456789012345:", " 1", "1 ", "0x10", "1.0"})
+                assertParseLong(s, address);
+        } finally {
+            MEMORY.freeMemory(address, 32);
+        }
+    }
+
+    private static void assertParseLong(String s, long address) {
+        final byte[] bytes = ("[" + s + "]").getBytes(StandardCharsets.ISO_8859_1);
+        MEMORY.copyMemory(bytes, 1, address, s.length());
+        String expected;
+        try {
+            expected = Long.toString(Long.parseLong(s));
+        } catch (NumberFormatException e) {
+            expected = "For input string: \"" + s + "\"";
+        }
+        assertEquals(s, expected, parseOrMessage(() -> StringUtils.parseLong(address, s.length())));
+        assertEquals(s, expected, parseOrMessage(() -> StringUtils.parseLong(bytes, 1, s.length())));
+        assertEquals(s, expected, parseOrMessage(() -> StringUtils.parseLong(s, 10)));
+
+        try {
+            expected = Integer.toString(Integer.parseInt(s));
+        } catch (NumberFormatException e) {
+            expected = "For input string: \"" + s + "\"";
+        }
+        assertEquals(s, expected, parseOrMessage(() -> StringUtils.parseInt(address, s.length())));
+        assertEquals(s, expected, parseOrMessage(() -> StringUtils.parseInt(bytes, 1, s.length())));
+    }
+
+    private static String parseOrMessage(LongSupplier parser) {
+        try {
+            return Long.toString(parser.getAsLong());
+        } catch (NumberFormatException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static void assertParseDouble(String s, long address) {
+        final long expected = Double.doubleToLongBits(Double.parseDouble(s));
+        assertEquals(s, expected, Double.doubleToLongBits(StringUtils.parseDouble(s)));
+        final byte[] bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(s, expected, Double.doubleToLongBits(StringUtils.parseDouble(bytes, 0, bytes.length)));
+        if (bytes.length <= 64) {
+            MEMORY.copyMemory(bytes, 0, address, bytes.length);
+            assertEquals(s, expected, Double.doubleToLongBits(StringUtils.parseDouble(address, bytes.length)));
+        }
+    }
+
     @Test
     public void testIsEqual() {
 